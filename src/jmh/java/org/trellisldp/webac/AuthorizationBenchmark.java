@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.util.stream.Collectors.toList;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.Triple;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark the construction of {@link Authorization} values from an ACL.
+ *
+ * @author acoburn
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AuthorizationBenchmark {
+
+    @Param({"4", "64"})
+    private int authorizations;
+
+    private List<Triple> acl;
+    private Graph graph;
+    private List<BlankNodeOrIRI> subjects;
+
+    @Setup
+    public void setUp() {
+        acl = new SyntheticTree(0, authorizations, 2).getAcl();
+        graph = getInstance().createGraph();
+        acl.forEach(graph::add);
+        subjects = acl.stream().map(Triple::getSubject).distinct().collect(toList());
+    }
+
+    @Benchmark
+    public List<Authorization> fromGraph() {
+        return subjects.stream().map(subject -> Authorization.from(subject, graph)).collect(toList());
+    }
+
+    @Benchmark
+    public List<Authorization> parse() {
+        return Authorization.parse(acl.stream());
+    }
+}
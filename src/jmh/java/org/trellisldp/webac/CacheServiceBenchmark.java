@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.trellisldp.api.CacheService;
+import org.trellisldp.vocabulary.ACL;
+
+/**
+ * Benchmark {@link CacheService} implementations under the access pattern of
+ * {@link WebACService#getAccessModes}: many resources, a smaller population of agents, and a skewed
+ * (Zipf-distributed) popularity of (resource, agent) pairs.
+ *
+ * @author acoburn
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class CacheServiceBenchmark {
+
+    private static final RDF rdf = getInstance();
+
+    private static final int KEYS = 1 << 17;
+
+    private static final Set<IRI> MODES = ModeSet.of(ModeSet.bit(ACL.Read));
+
+    @Param({"bounded", "unbounded"})
+    private String implementation;
+
+    @Param({"10000"})
+    private int maximumSize;
+
+    private CacheService<CacheKey, Set<IRI>> cache;
+    private CacheKey[] keys;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next = new Random().nextInt(KEYS);
+    }
+
+    @Setup
+    public void setUp() {
+        if ("bounded".equals(implementation)) {
+            cache = new BoundedCacheService<>(maximumSize);
+        } else {
+            final Map<CacheKey, Set<IRI>> data = new ConcurrentHashMap<>();
+            cache = data::computeIfAbsent;
+        }
+
+        // Draw keys from a Zipf distribution (s = 1) over 1000 agents and 10000 resources per agent
+        final Random random = new Random(42L);
+        final int population = 10000000;
+        final double harmonic = Math.log(population) + 0.5772156649;
+        keys = new CacheKey[KEYS];
+        for (int i = 0; i < KEYS; ++i) {
+            final long rank = Math.max(1L, Math.min(population, (long) Math.exp(random.nextDouble() * harmonic)));
+            keys[i] = new CacheKey(rdf.createIRI("trellis:repository/resource/" + rank % 10000),
+                    rdf.createIRI("info:user/agent" + rank / 10000));
+        }
+    }
+
+    @Benchmark
+    public Set<IRI> get(final Cursor cursor) {
+        cursor.next = (cursor.next + 1) & (KEYS - 1);
+        return cache.get(keys[cursor.next], k -> MODES);
+    }
+}
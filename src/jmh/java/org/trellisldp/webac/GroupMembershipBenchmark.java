@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark acl:agentGroup membership checks, with and without the group membership index.
+ *
+ * @author acoburn
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GroupMembershipBenchmark {
+
+    @Param({"2", "1000", "100000"})
+    private int groupSize;
+
+    @Param({"false", "true"})
+    private boolean indexed;
+
+    private AclResolver resolver;
+
+    @Setup
+    public void setUp() {
+        final SyntheticTree tree = new SyntheticTree(0, 1, groupSize);
+        resolver = indexed ? new AclResolver(tree.getResourceService(), 1000, 1000, 1000, null)
+            : new AclResolver(tree.getResourceService());
+    }
+
+    @Benchmark
+    public boolean isAgentInGroup() {
+        return resolver.isAgentInGroup(SyntheticTree.AGENT).test(SyntheticTree.GROUP);
+    }
+}
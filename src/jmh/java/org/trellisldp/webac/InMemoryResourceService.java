@@ -0,0 +1,169 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.trellisldp.api.RDFUtils.getInstance;
+import static org.trellisldp.vocabulary.RDF.type;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Dataset;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Quad;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.api.Triple;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.api.VersionRange;
+import org.trellisldp.vocabulary.LDP;
+import org.trellisldp.vocabulary.Trellis;
+
+/**
+ * A minimal, in-memory {@link ResourceService} used to drive the benchmarks.
+ *
+ * <p>Only the current state of each resource is kept: resources have no mementos and no binaries.</p>
+ *
+ * @author acoburn
+ */
+class InMemoryResourceService implements ResourceService {
+
+    private static final RDF rdf = getInstance();
+
+    private final Map<IRI, Resource> resources = new ConcurrentHashMap<>();
+
+    /**
+     * Add a resource
+     * @param identifier the resource identifier
+     * @param graphs the triples of the resource, keyed by graph name
+     * @param hasAcl whether the resource has an ACL
+     */
+    void add(final IRI identifier, final Map<IRI, List<Triple>> graphs, final boolean hasAcl) {
+        resources.put(identifier, new InMemoryResource(identifier, graphs, hasAcl));
+    }
+
+    @Override
+    public Optional<Resource> get(final IRI identifier) {
+        return Optional.ofNullable(resources.get(identifier));
+    }
+
+    @Override
+    public Optional<Resource> get(final IRI identifier, final Instant time) {
+        return get(identifier);
+    }
+
+    @Override
+    public Boolean put(final IRI identifier, final Dataset dataset) {
+        final Map<IRI, List<Triple>> graphs = new HashMap<>();
+        try (final Stream<? extends Quad> quads = dataset.stream()) {
+            quads.forEach(quad -> graphs.computeIfAbsent(quad.getGraphName().filter(IRI.class::isInstance)
+                        .map(IRI.class::cast).orElse(Trellis.PreferUserManaged), k -> new ArrayList<>())
+                    .add(quad.asTriple()));
+        }
+        add(identifier, graphs, graphs.containsKey(Trellis.PreferAccessControl));
+        return true;
+    }
+
+    @Override
+    public Stream<IRI> compact(final IRI identifier, final Instant from, final Instant until) {
+        // No earlier versions are kept, so there is nothing to compact
+        return Stream.empty();
+    }
+
+    @Override
+    public Stream<IRI> purge(final IRI identifier) {
+        resources.remove(identifier);
+        return Stream.empty();
+    }
+
+    @Override
+    public Stream<? extends Triple> scan(final String partition) {
+        return resources.keySet().stream().map(id -> rdf.createTriple(id, type, LDP.Container));
+    }
+
+    @Override
+    public Supplier<String> getIdentifierSupplier() {
+        return () -> Long.toString(System.nanoTime());
+    }
+
+    private static final class InMemoryResource implements Resource {
+
+        private final IRI identifier;
+        private final Map<IRI, List<Triple>> graphs;
+        private final boolean hasAcl;
+        private final Instant modified = Instant.now();
+
+        private InMemoryResource(final IRI identifier, final Map<IRI, List<Triple>> graphs, final boolean hasAcl) {
+            this.identifier = identifier;
+            this.graphs = new HashMap<>(graphs);
+            this.hasAcl = hasAcl;
+        }
+
+        @Override
+        public IRI getIdentifier() {
+            return identifier;
+        }
+
+        @Override
+        public IRI getInteractionModel() {
+            return LDP.Container;
+        }
+
+        @Override
+        public List<VersionRange> getMementos() {
+            return emptyList();
+        }
+
+        @Override
+        public Stream<? extends Quad> stream() {
+            return graphs.entrySet().stream().flatMap(e -> e.getValue().stream().map(t ->
+                        rdf.createQuad(e.getKey(), t.getSubject(), t.getPredicate(), t.getObject())));
+        }
+
+        @Override
+        public Stream<? extends Triple> stream(final IRI graphName) {
+            return graphs.getOrDefault(graphName, emptyList()).stream();
+        }
+
+        @Override
+        public Stream<? extends Triple> stream(final Collection<IRI> graphNames) {
+            return graphNames.stream().flatMap(this::stream);
+        }
+
+        @Override
+        public Collection<IRI> getTypes() {
+            return singletonList(LDP.Container);
+        }
+
+        @Override
+        public Instant getModified() {
+            return modified;
+        }
+
+        @Override
+        public Boolean hasAcl() {
+            return hasAcl;
+        }
+    }
+}
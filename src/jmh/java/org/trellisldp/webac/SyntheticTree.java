@@ -0,0 +1,173 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.api.Triple;
+import org.trellisldp.vocabulary.ACL;
+import org.trellisldp.vocabulary.Trellis;
+import org.trellisldp.vocabulary.VCARD;
+
+/**
+ * Generate a synthetic resource hierarchy for the benchmarks.
+ *
+ * <p>The tree is a spine of containers of the given depth below the root, and every container on the spine has
+ * the given number of children, the first of which continues the spine; the leaf is the deepest resource on the
+ * spine. The tree therefore holds {@code 1 + depth * breadth} resources, and its depth, its fan-out, the placement
+ * of its ACLs and their size can be varied independently.</p>
+ *
+ * <p>Each ACL holds the given number of authorizations, which apply to the resource itself and are inherited
+ * by its descendants: all but the last are granted to other agents, and the last is granted to a group of the
+ * given size. The benchmark agent and its delegate are the last members of that group, so that a membership
+ * check reads every member.</p>
+ *
+ * @author acoburn
+ */
+final class SyntheticTree {
+
+    /**
+     * The resources of the tree that hold an ACL.
+     */
+    enum AclPlacement {
+        /** Only the root holds an ACL, so resolving the leaf walks the entire spine. */
+        ROOT,
+        /** Every container on the spine holds an ACL, so each resource inherits from its parent. */
+        LEVEL,
+        /** Every resource holds its own ACL, so nothing is inherited. */
+        RESOURCE
+    }
+
+    private static final RDF rdf = getInstance();
+
+    static final IRI ROOT = rdf.createIRI("trellis:repository");
+    static final IRI GROUP = rdf.createIRI("trellis:repository/group#members");
+    static final IRI AGENT = rdf.createIRI("info:user/agent");
+    static final IRI DELEGATE = rdf.createIRI("info:user/delegate");
+
+    private final InMemoryResourceService resourceService = new InMemoryResourceService();
+    private final List<IRI> resources = new ArrayList<>();
+    private final int authorizations;
+    private IRI leaf = ROOT;
+
+    /**
+     * Create a synthetic tree that is a single chain of containers, with an ACL only at the root
+     * @param depth the number of containers below the root
+     * @param authorizations the number of authorizations in the root ACL
+     * @param groupSize the number of members of the group
+     */
+    SyntheticTree(final int depth, final int authorizations, final int groupSize) {
+        this(depth, 1, AclPlacement.ROOT, authorizations, groupSize);
+    }
+
+    /**
+     * Create a synthetic tree
+     * @param depth the number of containers below the root
+     * @param breadth the number of children of each container on the spine
+     * @param placement the resources that hold an ACL
+     * @param authorizations the number of authorizations in each ACL
+     * @param groupSize the number of members of the group
+     */
+    SyntheticTree(final int depth, final int breadth, final AclPlacement placement, final int authorizations,
+            final int groupSize) {
+        this.authorizations = authorizations;
+
+        final List<Triple> members = new ArrayList<>();
+        for (int i = 0; i < groupSize - 2; ++i) {
+            members.add(rdf.createTriple(GROUP, VCARD.hasMember, rdf.createIRI("info:user/member" + i)));
+        }
+        members.add(rdf.createTriple(GROUP, VCARD.hasMember, DELEGATE));
+        members.add(rdf.createTriple(GROUP, VCARD.hasMember, AGENT));
+        resourceService.add(rdf.createIRI("trellis:repository/group"),
+                singletonMap(Trellis.PreferUserManaged, members), false);
+
+        add(ROOT, true);
+        IRI parent = ROOT;
+        for (int level = 0; level < depth; ++level) {
+            for (int i = 0; i < breadth; ++i) {
+                final IRI child = rdf.createIRI(parent.getIRIString() + "/c" + level + "-" + i);
+                final boolean onSpine = i == 0;
+                add(child, placement == AclPlacement.RESOURCE
+                        || placement == AclPlacement.LEVEL && onSpine && level < depth - 1);
+                if (onSpine) {
+                    leaf = child;
+                }
+            }
+            parent = leaf;
+        }
+    }
+
+    /**
+     * Get the resource service backing this tree
+     * @return the resource service
+     */
+    InMemoryResourceService getResourceService() {
+        return resourceService;
+    }
+
+    /**
+     * Get the deepest resource on the spine of the tree
+     * @return the leaf identifier
+     */
+    IRI getLeaf() {
+        return leaf;
+    }
+
+    /**
+     * Get every resource of the tree, each after its container
+     * @return the identifiers
+     */
+    List<IRI> getResources() {
+        return resources;
+    }
+
+    /**
+     * Get the triples of the root ACL
+     * @return the ACL triples
+     */
+    List<Triple> getAcl() {
+        return getAcl(ROOT);
+    }
+
+    private void add(final IRI identifier, final boolean hasAcl) {
+        resources.add(identifier);
+        resourceService.add(identifier, hasAcl ? singletonMap(Trellis.PreferAccessControl, getAcl(identifier))
+                : emptyMap(), hasAcl);
+    }
+
+    private List<Triple> getAcl(final IRI identifier) {
+        final List<Triple> acl = new ArrayList<>();
+        for (int i = 0; i < authorizations; ++i) {
+            final IRI auth = rdf.createIRI(identifier.getIRIString() + "#auth" + i);
+            acl.add(rdf.createTriple(auth, ACL.accessTo, identifier));
+            acl.add(rdf.createTriple(auth, ACL.default_, identifier));
+            acl.add(rdf.createTriple(auth, ACL.mode, ACL.Read));
+            acl.add(rdf.createTriple(auth, ACL.mode, ACL.Write));
+            if (i == authorizations - 1) {
+                acl.add(rdf.createTriple(auth, ACL.mode, ACL.Append));
+                acl.add(rdf.createTriple(auth, ACL.agentGroup, GROUP));
+            } else {
+                acl.add(rdf.createTriple(auth, ACL.agent, rdf.createIRI("info:user/other" + i)));
+            }
+        }
+        return acl;
+    }
+}
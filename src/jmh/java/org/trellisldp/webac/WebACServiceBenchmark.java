@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.rdf.api.IRI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.trellisldp.api.Session;
+import org.trellisldp.vocabulary.ACL;
+
+/**
+ * Benchmark the decision paths of the {@link WebACService}, with and without a decision cache.
+ *
+ * <p>The benchmarks run over a {@link SyntheticTree}, whose depth, fan-out, ACL placement and ACL size are
+ * parameters. A single resource is evaluated at the deepest point of the tree, and a batch covers the whole
+ * tree.</p>
+ *
+ * @author acoburn
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class WebACServiceBenchmark {
+
+    @Param({"1", "8"})
+    private int depth;
+
+    @Param({"1", "16"})
+    private int breadth;
+
+    @Param({"ROOT", "LEVEL", "RESOURCE"})
+    private String placement;
+
+    @Param({"4", "64"})
+    private int authorizations;
+
+    @Param({"2", "1000"})
+    private int groupSize;
+
+    @Param({"false", "true"})
+    private boolean delegated;
+
+    @Param({"false", "true"})
+    private boolean cached;
+
+    private WebACService service;
+    private Session session;
+    private IRI leaf;
+    private List<IRI> resources;
+
+    @Setup
+    public void setUp() {
+        final SyntheticTree tree = new SyntheticTree(depth, breadth, SyntheticTree.AclPlacement.valueOf(placement),
+                authorizations, groupSize);
+        final Map<CacheKey, Set<IRI>> data = new ConcurrentHashMap<>();
+        service = cached ? new WebACService(tree.getResourceService(), data::computeIfAbsent)
+            : new WebACService(tree.getResourceService());
+        session = new BenchmarkSession(SyntheticTree.AGENT, delegated ? SyntheticTree.DELEGATE : null);
+        leaf = tree.getLeaf();
+        resources = tree.getResources();
+    }
+
+    @Benchmark
+    public Set<IRI> getAccessModes() {
+        return service.getAccessModes(leaf, session);
+    }
+
+    @Benchmark
+    public boolean hasAccess() {
+        return service.hasAccess(leaf, session, ACL.Read);
+    }
+
+    @Benchmark
+    public Map<IRI, Set<IRI>> getAccessModesBatch() {
+        return service.getAccessModes(resources, session);
+    }
+
+    private static final class BenchmarkSession implements Session {
+
+        private final IRI agent;
+        private final IRI delegate;
+        private final Instant created = Instant.now();
+
+        private BenchmarkSession(final IRI agent, final IRI delegate) {
+            this.agent = agent;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public IRI getIdentifier() {
+            return agent;
+        }
+
+        @Override
+        public IRI getAgent() {
+            return agent;
+        }
+
+        @Override
+        public Optional<IRI> getDelegatedBy() {
+            return Optional.ofNullable(delegate);
+        }
+
+        @Override
+        public Instant getCreated() {
+            return created;
+        }
+    }
+}
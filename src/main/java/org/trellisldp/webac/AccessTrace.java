@@ -0,0 +1,180 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.slf4j.Logger;
+
+/**
+ * A record of the hottest authorization decisions and ACL sources of a {@link WebACService}.
+ *
+ * <p>A trace counts how often each (resource, agent, delegating agent) decision is made and how often each ACL
+ * source is consulted. It can be saved when a service is shut down and replayed with
+ * {@link WebACService#warmUp} when the next one starts, so that its caches are populated before traffic
+ * arrives. Once the trace holds its maximum number of entries, new decisions and sources are no longer
+ * recorded, but the counts of existing entries continue to be updated.</p>
+ *
+ * <p>A trace is saved as UTF-8 text, with one tab-separated entry per line, hottest first:
+ * {@code S count source} for an ACL source and {@code D count identifier agent [delegate]} for a decision.</p>
+ *
+ * @author acoburn
+ */
+public final class AccessTrace {
+
+    private static final Logger LOGGER = getLogger(AccessTrace.class);
+
+    private static final RDF rdf = getInstance();
+
+    private static final String SOURCE = "S";
+    private static final String DECISION = "D";
+
+    private final Map<CacheKey, LongAdder> decisions = new ConcurrentHashMap<>();
+    private final Map<IRI, LongAdder> sources = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    /**
+     * Create an access trace
+     * @param maxEntries the maximum number of decisions and of ACL sources to record
+     */
+    public AccessTrace(final int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Read an access trace
+     * @param file the file
+     * @param maxEntries the maximum number of decisions and of ACL sources to record
+     * @return the access trace
+     * @throws IOException if the file could not be read
+     */
+    public static AccessTrace read(final Path file, final int maxEntries) throws IOException {
+        requireNonNull(file, "A non-null file must be provided!");
+        final AccessTrace trace = new AccessTrace(maxEntries);
+        try (final BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] fields = line.split("\t");
+                try {
+                    if (fields.length == 3 && SOURCE.equals(fields[0])) {
+                        trace.add(trace.sources, rdf.createIRI(fields[2]), Long.parseLong(fields[1]));
+                    } else if ((fields.length == 4 || fields.length == 5) && DECISION.equals(fields[0])) {
+                        trace.add(trace.decisions, new CacheKey(rdf.createIRI(fields[2]), rdf.createIRI(fields[3]),
+                                    fields.length == 5 ? rdf.createIRI(fields[4]) : null, 0L),
+                                Long.parseLong(fields[1]));
+                    } else if (!line.isEmpty()) {
+                        LOGGER.warn("Ignoring invalid access trace entry: {}", line);
+                    }
+                } catch (final IllegalArgumentException ex) {
+                    LOGGER.warn("Ignoring invalid access trace entry: {}", line);
+                }
+            }
+        }
+        return trace;
+    }
+
+    /**
+     * Save the access trace
+     * @param file the file
+     * @throws IOException if the file could not be written
+     */
+    public void write(final Path file) throws IOException {
+        requireNonNull(file, "A non-null file must be provided!");
+        try (final BufferedWriter writer = Files.newBufferedWriter(file, UTF_8)) {
+            for (final Map.Entry<IRI, Long> source : hottest(sources)) {
+                writer.write(String.join("\t", SOURCE, source.getValue().toString(),
+                            source.getKey().getIRIString()));
+                writer.newLine();
+            }
+            for (final Map.Entry<CacheKey, Long> decision : hottest(decisions)) {
+                final CacheKey key = decision.getKey();
+                writer.write(String.join("\t", DECISION, decision.getValue().toString(),
+                            key.getIdentifier().getIRIString(), key.getAgent().getIRIString()));
+                if (key.getDelegatedBy().isPresent()) {
+                    writer.write("\t" + key.getDelegatedBy().get().getIRIString());
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Record an authorization decision
+     * @param identifier the resource identifier
+     * @param agent the agent
+     * @param delegate the delegating agent (may be null)
+     */
+    void recordDecision(final IRI identifier, final IRI agent, final IRI delegate) {
+        add(decisions, new CacheKey(identifier, agent, delegate, 0L), 1L);
+    }
+
+    /**
+     * Record the use of an ACL source
+     * @param source the identifier of the resource holding the ACL
+     */
+    void recordSource(final IRI source) {
+        add(sources, source, 1L);
+    }
+
+    /**
+     * Get the recorded decisions
+     * @return the decisions, hottest first; the revision of each key is not used
+     */
+    List<CacheKey> getDecisions() {
+        return hottest(decisions).stream().map(Map.Entry::getKey).collect(toList());
+    }
+
+    /**
+     * Get the recorded ACL sources
+     * @return the identifiers of the resources holding the ACLs, hottest first
+     */
+    List<IRI> getSources() {
+        return hottest(sources).stream().map(Map.Entry::getKey).collect(toList());
+    }
+
+    private <K> void add(final Map<K, LongAdder> counts, final K key, final long count) {
+        LongAdder counter = counts.get(key);
+        if (isNull(counter)) {
+            if (counts.size() >= maxEntries) {
+                return;
+            }
+            counter = counts.computeIfAbsent(key, k -> new LongAdder());
+        }
+        counter.add(count);
+    }
+
+    private static <K> List<Map.Entry<K, Long>> hottest(final Map<K, LongAdder> counts) {
+        return counts.entrySet().stream()
+            .<Map.Entry<K, Long>>map(e -> new SimpleImmutableEntry<>(e.getKey(), e.getValue().sum()))
+            .sorted((a, b) -> Long.compare(b.getValue(), a.getValue())).collect(toList());
+    }
+}
@@ -0,0 +1,482 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.toSet;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.slf4j.Logger;
+
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.api.RuntimeRepositoryException;
+import org.trellisldp.vocabulary.Trellis;
+import org.trellisldp.vocabulary.VCARD;
+
+/**
+ * Resolve the authorizations that apply to a resource and the group memberships of agents.
+ *
+ * <p>A resolver may be created with or without lookup tiers. Without them, every call walks the resource
+ * hierarchy and reads the relevant ACL and group documents. With them, the effective ACL source of each
+ * existing resource, whether each resource holds an ACL (in an {@link AclTrie}), the parsed ACL of each ACL-bearing
+ * resource, the members of each group and the nearest existing ancestor of each missing resource are memoized
+ * for as long as the resolver lives (subject to the size and expiry bounds of each tier).</p>
+ *
+ * @author acoburn
+ */
+final class AclResolver {
+
+    private static final Logger LOGGER = getLogger(AclResolver.class);
+
+    private final ResourceService resourceService;
+    private final LruCache<IRI, CompiledAcl> aclCache;
+    private final LruCache<IRI, EffectiveAcl> aclIndex;
+    private final LruCache<IRI, IRI> missing;
+    private final AclTrie aclTrie;
+    private final GroupIndex groupIndex;
+    private final Revisions revisions;
+    private final Map<IRI, Map<IRI, CompiledAcl>> groupSources = new ConcurrentHashMap<>();
+    private final SingleFlight<IRI, CompiledAcl> compilations = new SingleFlight<>();
+    private final SnapshotLayer snapshot;
+
+    /**
+     * Create a resolver that does not memoize any lookups
+     * @param resourceService the resource service
+     */
+    AclResolver(final ResourceService resourceService) {
+        this(resourceService, null);
+    }
+
+    /**
+     * Create a resolver that does not memoize any lookups
+     * @param resourceService the resource service
+     * @param snapshot a snapshot of effective ACL sources (may be null)
+     */
+    AclResolver(final ResourceService resourceService, final SnapshotLayer snapshot) {
+        this.resourceService = resourceService;
+        this.snapshot = snapshot;
+        this.revisions = null;
+        this.aclCache = null;
+        this.aclIndex = null;
+        this.missing = null;
+        this.aclTrie = null;
+        this.groupIndex = null;
+    }
+
+    /**
+     * Create a resolver that memoizes its lookups
+     * @param resourceService the resource service
+     * @param maxAcls the maximum number of compiled ACLs to hold
+     * @param maxIdentifiers the maximum number of identifiers to hold in the ACL source index
+     * @param maxGroups the maximum number of groups to hold in the membership index
+     * @param expiry the time after which ACL sources and group memberships are resolved again
+     *               (may be null if entries should not expire)
+     */
+    AclResolver(final ResourceService resourceService, final int maxAcls, final int maxIdentifiers,
+            final int maxGroups, final Duration expiry) {
+        this(resourceService, maxAcls, maxIdentifiers, maxGroups, expiry, null);
+    }
+
+    /**
+     * Create a resolver that memoizes its lookups
+     * @param resourceService the resource service
+     * @param maxAcls the maximum number of compiled ACLs to hold
+     * @param maxIdentifiers the maximum number of identifiers to hold in the ACL source index
+     * @param maxGroups the maximum number of groups to hold in the membership index
+     * @param expiry the time after which ACL sources and group memberships are resolved again
+     *               (may be null if entries should not expire)
+     * @param snapshot a snapshot of effective ACL sources (may be null)
+     */
+    AclResolver(final ResourceService resourceService, final int maxAcls, final int maxIdentifiers,
+            final int maxGroups, final Duration expiry, final SnapshotLayer snapshot) {
+        this.resourceService = resourceService;
+        this.snapshot = snapshot;
+        this.revisions = new Revisions(maxIdentifiers);
+        this.aclCache = new LruCache<>(maxAcls, null, this::evicted);
+        this.aclIndex = new LruCache<>(maxIdentifiers, expiry);
+        this.missing = new LruCache<>(maxIdentifiers, expiry);
+        this.aclTrie = new AclTrie(maxIdentifiers, expiry);
+        this.groupIndex = new GroupIndex(this::getGroupMembers, maxGroups, expiry);
+    }
+
+    /**
+     * Get the authorizations that apply to a resource
+     * @param identifier the resource identifier
+     * @return the applicable authorizations
+     */
+    AuthorizationIndex getAuthorizationsFor(final IRI identifier) {
+        if (nonNull(aclIndex) || nonNull(snapshot) && snapshot.isEnabled()) {
+            return resolve(identifier).map(acl -> getAuthorizations(identifier, acl))
+                .orElse(AuthorizationIndex.EMPTY);
+        }
+        return getNearestResource(identifier, 0L).map(resource -> getAllAuthorizationsFor(resource, true))
+            .orElse(AuthorizationIndex.EMPTY);
+    }
+
+    /**
+     * Resolve the effective ACL source for a resource
+     *
+     * <p>The source is looked up in the ACL source index, then in the snapshot, and only then by walking the
+     * resource hierarchy.</p>
+     *
+     * @param identifier the resource identifier
+     * @return the effective ACL source, if one exists
+     */
+    Optional<EffectiveAcl> resolve(final IRI identifier) {
+        final EffectiveAcl cached = nonNull(aclIndex) ? aclIndex.get(identifier) : null;
+        if (nonNull(cached)) {
+            return Optional.of(cached);
+        }
+        final EffectiveAcl materialized = nonNull(snapshot) ? snapshot.resolve(identifier) : null;
+        if (nonNull(materialized)) {
+            return Optional.of(materialized);
+        }
+        if (nonNull(aclIndex)) {
+            final long revision = revisions.current();
+            final EffectiveAcl known = aclTrie.lookup(identifier);
+            if (nonNull(known)) {
+                store(aclIndex, identifier, known, revision);
+                return Optional.of(known);
+            }
+            // Only existing resources are indexed (by getEffectiveAcl): the hierarchy walk treats an index entry as
+            // an existing ancestor, and a missing one is already recorded in the missing tier
+            return getNearestResource(identifier, revision).flatMap(res -> getEffectiveAcl(res, revision));
+        }
+        return getNearestResource(identifier, 0L).flatMap(res -> getEffectiveAcl(res, 0L));
+    }
+
+    /**
+     * Get the authorizations that apply to a resource, given its effective ACL source
+     * @param identifier the resource identifier
+     * @param acl the effective ACL source, as returned by {@link #resolve}
+     * @return the applicable authorizations
+     */
+    AuthorizationIndex getAuthorizations(final IRI identifier, final EffectiveAcl acl) {
+        final Optional<AuthorizationIndex> authorizations = loadAcl(acl);
+        if (authorizations.isPresent()) {
+            return authorizations.get();
+        }
+        LOGGER.debug("ACL source {} for {} is no longer valid", acl.getSource(), identifier);
+        invalidate(acl.getSource());
+        if (nonNull(snapshot)) {
+            snapshot.invalidate(acl.getSource());
+        }
+        return resolve(identifier).flatMap(this::loadAcl).orElse(AuthorizationIndex.EMPTY);
+    }
+
+    /**
+     * Get the current revision
+     *
+     * <p>A value that is derived from memoized data should be stamped with the revision that was current before
+     * it was loaded, so that it can later be checked with {@link #isCurrent}.</p>
+     *
+     * @return the revision
+     */
+    long getRevision() {
+        return revisions.current();
+    }
+
+    /**
+     * Determine whether the values derived from a resource are still current
+     *
+     * <p>This does not resolve the ACL source of the resource again: it only checks, without locking, that none
+     * of the resources on which the values depend has been invalidated since the revision.</p>
+     *
+     * @param identifier the resource identifier
+     * @param source the effective ACL source of the resource (may be null if it is not known)
+     * @param revision the revision that was current before the values were loaded
+     * @return true if the values are still current
+     */
+    boolean isCurrent(final IRI identifier, final IRI source, final long revision) {
+        return revisions.isCurrent(identifier, source, revision);
+    }
+
+    /**
+     * Invalidate any memoized data that may be affected by a change to a resource
+     *
+     * <p>This drops the compiled ACL (and the record of the groups to which it refers) and the recorded ACL status of
+     * the resource, the ACL source index entries for the resource, for its descendants and for any resource whose
+     * effective ACL it holds, the memberships of any group defined in the resource, and any record of the resource or
+     * its descendants being missing (or of the resource being the nearest existing ancestor of a missing resource). Any
+     * ancestor of the resource that was recorded as missing is dropped too, since it must now exist. The revision of
+     * the resource, of those ancestors and of the ACL sources that refer to any group defined in it is advanced.
+     * Descendants are identified by their path, i.e. any identifier that begins with the changed identifier followed by
+     * a slash.</p>
+     *
+     * @param identifier the identifier of the resource that changed
+     */
+    void invalidate(final IRI identifier) {
+        if (nonNull(aclIndex)) {
+            LOGGER.debug("Invalidating cached authorization data for {}", identifier);
+            // Loads that are already in flight see this change and do not keep their results
+            revisions.advance(identifier);
+            final String prefix = identifier.getIRIString() + "/";
+            final CompiledAcl dropped = aclCache.remove(identifier);
+            if (nonNull(dropped)) {
+                unregister(identifier, dropped);
+            }
+            aclTrie.invalidate(identifier);
+            aclIndex.removeIf((id, acl) -> id.equals(identifier) || acl.getSource().equals(identifier)
+                    || id.getIRIString().startsWith(prefix));
+            // A resource that changed exists (or existed), so its ancestors can no longer be missing
+            final Set<IRI> ancestors = new HashSet<>();
+            missing.removeIf((id, ancestor) -> {
+                if (isAncestor(id, identifier)) {
+                    ancestors.add(id);
+                    return true;
+                }
+                return id.equals(identifier) || ancestor.equals(identifier) || id.getIRIString().startsWith(prefix);
+            });
+            groupIndex.invalidate(group -> cleanIdentifier(group).equals(identifier));
+            // Values derived while the tiers were being cleared are not current either
+            revisions.advance(identifier);
+            groupSources.getOrDefault(identifier, emptyMap()).keySet().forEach(revisions::advance);
+            ancestors.forEach(ancestor -> {
+                revisions.advance(ancestor);
+                missing.remove(ancestor);
+                aclIndex.remove(ancestor);
+            });
+        }
+    }
+
+    /**
+     * Get a predicate that tests whether an agent is a member of a group
+     * @param agent the agent
+     * @return the predicate
+     */
+    Predicate<IRI> isAgentInGroup(final IRI agent) {
+        if (nonNull(groupIndex)) {
+            return group -> groupIndex.isMember(agent, group);
+        }
+        return group -> fetch(cleanIdentifier(group)).filter(res -> {
+            try (final Stream<RDFTerm> triples = res.stream(Trellis.PreferUserManaged)
+                    .filter(t -> t.getSubject().equals(group) && t.getPredicate().equals(VCARD.hasMember))
+                    .map(Triple::getObject)) {
+                return triples.anyMatch(agent::equals);
+            }
+        }).isPresent();
+    }
+
+    /**
+     * Determine whether the memberships of a collection of groups are memoized
+     * @param groups the groups
+     * @return true if the memberships of every group can be checked without reading a group document
+     */
+    boolean isIndexed(final Collection<IRI> groups) {
+        return nonNull(groupIndex) && groupIndex.isIndexed(groups);
+    }
+
+    private Optional<AuthorizationIndex> loadAcl(final EffectiveAcl acl) {
+        return fetch(acl.getSource()).filter(Resource::hasAcl).map(this::getAcl).map(acl::select);
+    }
+
+    private Optional<EffectiveAcl> getEffectiveAcl(final Resource resource, final long revision) {
+        final EffectiveAcl cached = nonNull(aclIndex) ? aclIndex.get(resource.getIdentifier()) : null;
+        if (nonNull(cached)) {
+            return Optional.of(cached);
+        }
+        final Optional<EffectiveAcl> acl;
+        if (resource.hasAcl()) {
+            acl = Optional.of(new EffectiveAcl(resource.getIdentifier(), false));
+        } else {
+            LOGGER.debug("No ACL for {}; looking up parent resource", resource.getIdentifier());
+            DecisionTrace.step();
+            acl = resourceService.getContainer(resource.getIdentifier()).flatMap(id -> getEffectiveAcl(id, revision))
+                .map(EffectiveAcl::inherit);
+        }
+        if (nonNull(aclIndex)) {
+            aclTrie.put(resource.getIdentifier(), resource.hasAcl());
+            if (!revisions.isCurrent(resource.getIdentifier(), null, revision)) {
+                aclTrie.invalidate(resource.getIdentifier());
+            }
+            acl.ifPresent(a -> store(aclIndex, resource.getIdentifier(), a, revision));
+        }
+        return acl;
+    }
+
+    private Optional<EffectiveAcl> getEffectiveAcl(final IRI identifier, final long revision) {
+        if (nonNull(aclIndex)) {
+            final EffectiveAcl cached = aclIndex.get(identifier);
+            if (nonNull(cached)) {
+                return Optional.of(cached);
+            }
+            // The ACL status of the ancestors may be known even if this identifier was evicted from the index
+            final EffectiveAcl known = aclTrie.lookup(identifier);
+            if (nonNull(known)) {
+                store(aclIndex, identifier, known, revision);
+                return Optional.of(known);
+            }
+        }
+        return fetch(identifier).flatMap(res -> getEffectiveAcl(res, revision));
+    }
+
+    private Optional<Resource> fetch(final IRI identifier) {
+        DecisionTrace.backendCall();
+        return resourceService.get(identifier);
+    }
+
+    private Optional<Resource> getNearestResource(final IRI identifier, final long revision) {
+        final IRI ancestor = nonNull(missing) ? missing.get(identifier) : null;
+        if (nonNull(ancestor)) {
+            // The identifier is known to be missing: go directly to its nearest existing ancestor
+            final Optional<Resource> res = fetch(ancestor);
+            if (res.isPresent()) {
+                return res;
+            }
+            missing.remove(identifier);
+        }
+
+        final Optional<Resource> res = fetch(identifier);
+        // TODO -- JDK9 refactor with Optional::or
+        if (res.isPresent()) {
+            return res;
+        }
+        DecisionTrace.step();
+        final Optional<Resource> nearest = resourceService.getContainer(identifier)
+            .flatMap(id -> getNearestResource(id, revision));
+        if (nonNull(missing)) {
+            nearest.ifPresent(r -> store(missing, identifier, r.getIdentifier(), revision));
+        }
+        return nearest;
+    }
+
+    // A value is checked after it is added: an invalidation that is not yet visible at that point advances the
+    // revision before it clears the tiers, so it removes the value itself
+    private <V> void store(final LruCache<IRI, V> tier, final IRI identifier, final V value, final long revision) {
+        tier.put(identifier, value);
+        if (!revisions.isCurrent(identifier, null, revision)) {
+            LOGGER.debug("Discarding memoized data for {}, which changed while it was loading", identifier);
+            tier.remove(identifier, value);
+        }
+    }
+
+    private Set<IRI> getGroupMembers(final IRI group) {
+        LOGGER.debug("Loading members of group: {}", group);
+        return fetch(cleanIdentifier(group)).map(res -> {
+            try (final Stream<RDFTerm> triples = res.stream(Trellis.PreferUserManaged)
+                    .filter(t -> t.getSubject().equals(group) && t.getPredicate().equals(VCARD.hasMember))
+                    .map(Triple::getObject)) {
+                // Members are not pooled: a few large groups would otherwise flush the shared pool over and over
+                return triples.filter(IRI.class::isInstance).map(IRI.class::cast).collect(toSet());
+            }
+        }).orElseGet(Collections::emptySet);
+    }
+
+    private CompiledAcl getAcl(final Resource resource) {
+        if (nonNull(aclCache)) {
+            final CompiledAcl cached = aclCache.get(resource.getIdentifier());
+            if (nonNull(cached) && cached.isCurrent(resource)) {
+                return cached;
+            }
+            // Concurrent requests for the same stale or missing ACL share a single parse; the parse is stored
+            // before the flight completes, and a request that arrives just after it finds the stored value
+            return compilations.load(resource.getIdentifier(), id -> {
+                final CompiledAcl current = aclCache.get(id);
+                if (nonNull(current) && current.isCurrent(resource)) {
+                    return current;
+                }
+                final CompiledAcl acl = compileAcl(resource);
+                register(id, acl);
+                if (nonNull(current)) {
+                    unregister(id, current);
+                }
+                aclCache.put(id, acl);
+                return acl;
+            });
+        }
+        return compileAcl(resource);
+    }
+
+    // A group change advances the revision of every ACL source that refers to the group. A registration is only
+    // removed along with the compiled ACL that made it, so that one made by a newer compilation of the same ACL
+    // is kept
+    private void register(final IRI source, final CompiledAcl acl) {
+        acl.getAgentGroups().forEach(group -> groupSources.compute(cleanIdentifier(group), (k, sources) -> {
+            final Map<IRI, CompiledAcl> registered = nonNull(sources) ? sources : new ConcurrentHashMap<>();
+            registered.put(source, acl);
+            return registered;
+        }));
+    }
+
+    private void unregister(final IRI source, final CompiledAcl acl) {
+        acl.getAgentGroups().forEach(group -> groupSources.computeIfPresent(cleanIdentifier(group),
+                    (k, sources) -> {
+                        sources.remove(source, acl);
+                        return sources.isEmpty() ? null : sources;
+                    }));
+    }
+
+    // Decisions that were derived from an evicted ACL may still be cached, and would no longer be told about a
+    // change to one of its groups, so they are made out of date along with the registrations
+    private void evicted(final IRI source, final CompiledAcl acl) {
+        if (!acl.getAgentGroups().isEmpty()) {
+            revisions.advance(source);
+            unregister(source, acl);
+            revisions.advance(source);
+        }
+    }
+
+    private CompiledAcl compileAcl(final Resource resource) {
+        LOGGER.debug("Parsing ACL for: {}", resource.getIdentifier());
+        try (final Stream<? extends Triple> triples = resource.stream(Trellis.PreferAccessControl)) {
+            return new CompiledAcl(resource, Authorization.parse(triples));
+        } catch (final Exception ex) {
+            throw new RuntimeRepositoryException(ex);
+        }
+    }
+
+    private AuthorizationIndex getAllAuthorizationsFor(final Resource resource, final Boolean top) {
+        LOGGER.debug("Checking ACL for: {}", resource.getIdentifier());
+        if (resource.hasAcl()) {
+            final CompiledAcl acl = getAcl(resource);
+            return top ? acl.getAccessTo() : acl.getInherited();
+        }
+        // Nothing here, check the parent
+        LOGGER.debug("No ACL for {}; looking up parent resource", resource.getIdentifier());
+        DecisionTrace.step();
+        return resourceService.getContainer(resource.getIdentifier()).flatMap(this::fetch)
+            .map(res -> getAllAuthorizationsFor(res, false)).orElse(AuthorizationIndex.EMPTY);
+    }
+
+    private static boolean isAncestor(final IRI ancestor, final IRI identifier) {
+        final String id = identifier.getIRIString();
+        final int length = ancestor.getIRIString().length();
+        return id.length() > length && id.charAt(length) == '/' && id.startsWith(ancestor.getIRIString());
+    }
+
+    /**
+     * Clean the identifier
+     * @param identifier the identifier
+     * @return the cleaned identifier
+     */
+    private static IRI cleanIdentifier(final IRI identifier) {
+        return IriPool.getPool().normalize(identifier);
+    }
+}
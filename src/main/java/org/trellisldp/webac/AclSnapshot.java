@@ -0,0 +1,258 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Objects.requireNonNull;
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.api.Triple;
+import org.slf4j.Logger;
+import org.trellisldp.api.ResourceService;
+
+/**
+ * A materialized table of the effective ACL source of every resource in a repository, stored in a
+ * memory-mapped file.
+ *
+ * <p>A snapshot is written by walking the repository with {@link ResourceService#scan} and applying the same
+ * inheritance rules as live evaluation: each resource is mapped to the nearest resource (itself or an ancestor)
+ * that holds an ACL, and to whether the acl:accessTo or the inherited authorizations of that ACL apply. Only
+ * this structure is materialized: the ACLs themselves are still read (and validated) live, so a change to the
+ * content of an ACL does not make a snapshot stale.</p>
+ *
+ * <p>The file holds a table of fixed-size entries, sorted by the hash code of the resource identifier, followed
+ * by a pool of UTF-8 strings. A lookup is a binary search over the mapped table followed by a comparison of the
+ * identifier bytes, so a snapshot of millions of resources uses almost no heap and is usable as soon as it has
+ * been opened. The string pool is limited to 2GB.</p>
+ *
+ * @author acoburn
+ */
+public final class AclSnapshot {
+
+    private static final Logger LOGGER = getLogger(AclSnapshot.class);
+
+    private static final RDF rdf = getInstance();
+
+    private static final int MAGIC = 0x57414353;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int ENTRY_SIZE = 12;
+    private static final int INHERITED = 0x80000000;
+
+    private final ByteBuffer buffer;
+    private final long created;
+    private final int count;
+    private final int pool;
+
+    private AclSnapshot(final ByteBuffer buffer) throws IOException {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a valid ACL snapshot");
+        }
+        this.buffer = buffer;
+        this.created = buffer.getLong(8);
+        this.count = buffer.getInt(16);
+        this.pool = HEADER_SIZE + count * ENTRY_SIZE;
+    }
+
+    /**
+     * Open a snapshot
+     * @param file the snapshot file
+     * @return the snapshot
+     * @throws IOException if the file could not be read or is not a valid snapshot
+     */
+    public static AclSnapshot open(final Path file) throws IOException {
+        requireNonNull(file, "A non-null file must be provided!");
+        try (final FileChannel channel = FileChannel.open(file, READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("ACL snapshot is too large: " + file);
+            }
+            return new AclSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Write a snapshot of a repository partition
+     *
+     * <p>The snapshot is written to a temporary file in the same directory, which then atomically replaces the
+     * target file, so that a snapshot that is currently open is never modified.</p>
+     *
+     * @param resourceService the resource service
+     * @param partition the partition to scan
+     * @param file the snapshot file
+     * @throws IOException if the snapshot could not be written
+     */
+    public static void write(final ResourceService resourceService, final String partition, final Path file)
+            throws IOException {
+        requireNonNull(resourceService, "A non-null ResourceService must be provided!");
+        requireNonNull(partition, "A non-null partition must be provided!");
+        requireNonNull(file, "A non-null file must be provided!");
+
+        // Record the start time: changes invalidated after this point are not guaranteed to be reflected
+        final long created = System.currentTimeMillis();
+        final AclResolver resolver = new AclResolver(resourceService, 1, 100000, 1, null);
+        final Map<String, Integer> strings = new HashMap<>();
+        final List<String> pool = new ArrayList<>();
+        final List<long[]> entries = new ArrayList<>();
+
+        try (final Stream<? extends Triple> triples = resourceService.scan(partition)) {
+            triples.map(Triple::getSubject).filter(IRI.class::isInstance).map(IRI.class::cast).distinct()
+                .forEach(identifier -> resolver.resolve(identifier).ifPresent(acl -> {
+                    final int key = intern(identifier.getIRIString(), strings, pool);
+                    final int source = intern(acl.getSource().getIRIString(), strings, pool);
+                    entries.add(new long[]{identifier.getIRIString().hashCode(), key,
+                        source | (acl.isInherited() ? INHERITED : 0)});
+                }));
+        }
+        entries.sort((a, b) -> Long.compare(a[0], b[0]));
+
+        final int[] offsets = new int[pool.size()];
+        long offset = 0L;
+        for (int i = 0; i < pool.size(); ++i) {
+            if (offset > Integer.MAX_VALUE) {
+                throw new IOException("ACL snapshot is too large");
+            }
+            offsets[i] = (int) offset;
+            offset += 4 + pool.get(i).getBytes(UTF_8).length;
+        }
+
+        // The snapshot may be mapped by a running service, so it is replaced rather than overwritten
+        final Path directory = file.toAbsolutePath().getParent();
+        final Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (final OutputStream os = Files.newOutputStream(temp);
+                    final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(created);
+                out.writeInt(entries.size());
+                out.writeInt(0);
+                for (final long[] entry : entries) {
+                    final int source = (int) entry[2];
+                    out.writeInt((int) entry[0]);
+                    out.writeInt(offsets[(int) entry[1]]);
+                    out.writeInt(offsets[source & ~INHERITED] | (source & INHERITED));
+                }
+                for (final String value : pool) {
+                    final byte[] bytes = value.getBytes(UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+            }
+            Files.move(temp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        LOGGER.info("Wrote ACL snapshot of {} resources to {}", entries.size(), file);
+    }
+
+    /**
+     * Get the time at which the snapshot was started
+     * @return the time, in milliseconds since the epoch
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * Get the number of resources in the snapshot
+     * @return the number of resources
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Look up the effective ACL source of a resource
+     * @param identifier the resource identifier
+     * @return the effective ACL source, or null if the resource is not in the snapshot
+     */
+    EffectiveAcl get(final String identifier) {
+        final int hash = identifier.hashCode();
+        int lo = 0;
+        int hi = count - 1;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (buffer.getInt(HEADER_SIZE + mid * ENTRY_SIZE) < hash) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        byte[] bytes = null;
+        for (int i = lo; i < count; ++i) {
+            final int entry = HEADER_SIZE + i * ENTRY_SIZE;
+            if (buffer.getInt(entry) != hash) {
+                break;
+            }
+            if (bytes == null) {
+                bytes = identifier.getBytes(UTF_8);
+            }
+            if (matches(buffer.getInt(entry + 4), bytes)) {
+                final int source = buffer.getInt(entry + 8);
+                return new EffectiveAcl(rdf.createIRI(readString(source & ~INHERITED)), (source & INHERITED) != 0);
+            }
+        }
+        return null;
+    }
+
+    private boolean matches(final int offset, final byte[] bytes) {
+        final int position = pool + offset;
+        if (buffer.getInt(position) != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; ++i) {
+            if (buffer.get(position + 4 + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readString(final int offset) {
+        final int position = pool + offset;
+        final byte[] bytes = new byte[buffer.getInt(position)];
+        for (int i = 0; i < bytes.length; ++i) {
+            bytes[i] = buffer.get(position + 4 + i);
+        }
+        return new String(bytes, UTF_8);
+    }
+
+    private static int intern(final String value, final Map<String, Integer> strings, final List<String> pool) {
+        return strings.computeIfAbsent(value, k -> {
+            pool.add(k);
+            return pool.size() - 1;
+        });
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.lang.System.nanoTime;
+import static java.util.Objects.isNull;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.time.Duration;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+
+/**
+ * An in-memory trie of resource identifiers, keyed by path segment, that records which resources hold an ACL.
+ *
+ * <p>The trie is populated as resources are read, and a node is marked unknown again when its resource changes
+ * or when its entry expires. The effective ACL source of an identifier can be found by walking the characters
+ * of the identifier through the trie, as long as the identifier and its ancestors up to the nearest one that
+ * holds an ACL are known. As with the default container resolution of the
+ * {@link org.trellisldp.api.ResourceService}, the ancestors of a resource are identified by its path.</p>
+ *
+ * <p>Lookups do not lock or allocate (other than for the result). Updates are serialized, and once the maximum
+ * number of nodes has been reached, new identifiers are no longer recorded.</p>
+ *
+ * @author acoburn
+ */
+final class AclTrie {
+
+    private static final RDF rdf = getInstance();
+
+    private static final byte UNKNOWN = 0;
+    private static final byte NO_ACL = 1;
+    private static final byte HAS_ACL = 2;
+
+    private final Node root = new Node("", 0);
+    private final int maxNodes;
+    private final long expiry;
+    private int nodes;
+
+    /**
+     * Create a trie
+     * @param maxNodes the maximum number of nodes
+     * @param expiry the time after which the ACL status of a resource is read again
+     *               (may be null if entries should not expire)
+     */
+    AclTrie(final int maxNodes, final Duration expiry) {
+        this.maxNodes = maxNodes;
+        this.expiry = isNull(expiry) ? Long.MAX_VALUE : expiry.toNanos();
+    }
+
+    /**
+     * Find the effective ACL source of a resource
+     * @param identifier the resource identifier
+     * @return the effective ACL source, or null if it cannot be determined from the trie
+     */
+    EffectiveAcl lookup(final IRI identifier) {
+        final String id = identifier.getIRIString();
+        final long now = expiry == Long.MAX_VALUE ? 0L : nanoTime();
+        Node node = root;
+        int source = -1;
+        int start = 0;
+        while (true) {
+            int hash = 0;
+            int end = start;
+            char c;
+            while (end < id.length() && (c = id.charAt(end)) != '/') {
+                hash = 31 * hash + c;
+                ++end;
+            }
+            node = node.child(id, start, end, hash);
+            if (isNull(node)) {
+                return null;
+            }
+            final byte state = isExpired(node, now) ? UNKNOWN : node.state;
+            if (end == id.length()) {
+                if (state == HAS_ACL) {
+                    return new EffectiveAcl(identifier, false);
+                }
+                if (state == NO_ACL && source >= 0) {
+                    return new EffectiveAcl(rdf.createIRI(id.substring(0, source)), true);
+                }
+                return null;
+            }
+            if (state == HAS_ACL) {
+                source = end;
+            } else if (state == UNKNOWN) {
+                // Only the ancestors below the nearest ACL-bearing ancestor need to be known
+                source = -1;
+            }
+            start = end + 1;
+        }
+    }
+
+    private boolean isExpired(final Node node, final long now) {
+        return expiry != Long.MAX_VALUE && now - node.loaded >= expiry;
+    }
+
+    /**
+     * Record whether a resource holds an ACL
+     * @param identifier the resource identifier
+     * @param hasAcl whether the resource holds an ACL
+     */
+    synchronized void put(final IRI identifier, final boolean hasAcl) {
+        final String id = identifier.getIRIString();
+        Node node = root;
+        int start = 0;
+        while (start <= id.length()) {
+            int end = id.indexOf('/', start);
+            if (end < 0) {
+                end = id.length();
+            }
+            final String segment = id.substring(start, end);
+            Node child = node.child(id, start, end, segment.hashCode());
+            if (isNull(child)) {
+                if (nodes >= maxNodes) {
+                    return;
+                }
+                child = node.add(segment);
+                nodes += 1;
+            }
+            node = child;
+            start = end + 1;
+        }
+        node.loaded = expiry == Long.MAX_VALUE ? 0L : nanoTime();
+        node.state = hasAcl ? HAS_ACL : NO_ACL;
+    }
+
+    /**
+     * Mark a resource as unknown
+     * @param identifier the resource identifier
+     */
+    void invalidate(final IRI identifier) {
+        final String id = identifier.getIRIString();
+        Node node = root;
+        int start = 0;
+        while (start <= id.length() && !isNull(node)) {
+            int end = id.indexOf('/', start);
+            if (end < 0) {
+                end = id.length();
+            }
+            node = node.child(id, start, end, id.substring(start, end).hashCode());
+            start = end + 1;
+        }
+        if (!isNull(node)) {
+            node.state = UNKNOWN;
+        }
+    }
+
+    /**
+     * Get the number of nodes in the trie
+     * @return the number of nodes
+     */
+    synchronized int size() {
+        return nodes;
+    }
+
+    /**
+     * A node in the trie, holding its children in an open-addressed hash table. The table is only modified
+     * while holding the trie lock, and is replaced (never resized in place) when it grows, so that readers
+     * always see a consistent table.
+     */
+    private static final class Node {
+        private final String segment;
+        private final int hash;
+        private volatile byte state = UNKNOWN;
+        private volatile long loaded;
+        private volatile Node[] children;
+        private int count;
+
+        private Node(final String segment, final int hash) {
+            this.segment = segment;
+            this.hash = hash;
+        }
+
+        private Node child(final String id, final int start, final int end, final int hash) {
+            final Node[] table = children;
+            if (isNull(table)) {
+                return null;
+            }
+            final int length = end - start;
+            final int mask = table.length - 1;
+            for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+                final Node node = table[i];
+                if (isNull(node)) {
+                    return null;
+                }
+                if (node.hash == hash && node.segment.length() == length
+                        && id.regionMatches(start, node.segment, 0, length)) {
+                    return node;
+                }
+            }
+        }
+
+        private Node add(final String name) {
+            final Node node = new Node(name, name.hashCode());
+            final Node[] table = children;
+            if (isNull(table) || (count + 1) * 2 > table.length) {
+                final Node[] resized = new Node[isNull(table) ? 4 : table.length * 2];
+                if (!isNull(table)) {
+                    for (final Node existing : table) {
+                        if (!isNull(existing)) {
+                            insert(resized, existing);
+                        }
+                    }
+                }
+                insert(resized, node);
+                children = resized;
+            } else {
+                insert(table, node);
+            }
+            count += 1;
+            return node;
+        }
+
+        private static void insert(final Node[] table, final Node node) {
+            final int mask = table.length - 1;
+            int i = spread(node.hash) & mask;
+            while (!isNull(table[i])) {
+                i = (i + 1) & mask;
+            }
+            table[i] = node;
+        }
+
+        private static int spread(final int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
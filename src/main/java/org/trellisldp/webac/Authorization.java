@@ -13,17 +13,28 @@
  */
 package org.trellisldp.webac;
 
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
 import static java.util.Collections.unmodifiableSet;
+import static java.util.Objects.isNull;
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
 
-import java.util.HashMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import org.apache.commons.rdf.api.BlankNodeOrIRI;
 import org.apache.commons.rdf.api.Graph;
 import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Triple;
 import org.trellisldp.vocabulary.ACL;
 
 /**
@@ -36,6 +47,10 @@ import org.trellisldp.vocabulary.ACL;
  * An ACL resource may contain multiple acl:Authorization sections. In an LDP context, this may be represented with
  * ldp:contains triples. Another common pattern is to refer to the acl:Authorization sections with blank nodes.
  *
+ * Authorization objects are immutable and compact: values are stored in sets sized to their contents (most
+ * authorizations have a single agent, mode and target), the access modes share one instance per combination,
+ * and the getters do not allocate.
+ *
  * @see <a href="https://www.w3.org/wiki/WebAccessControl">W3C WebAccessControl</a>
  * and <a href="https://github.com/solid/web-access-control-spec">Solid WebAC specification</a>
  *
@@ -43,8 +58,15 @@ import org.trellisldp.vocabulary.ACL;
  */
 public class Authorization {
 
+    private static final int ARRAY_SET_MAX = 8;
+
     private final BlankNodeOrIRI identifier;
-    private final Map<IRI, Set<IRI>> dataMap = new HashMap<>();
+    private final Set<IRI> agent;
+    private final Set<IRI> agentClass;
+    private final Set<IRI> agentGroup;
+    private final Set<IRI> mode;
+    private final Set<IRI> accessTo;
+    private final Set<IRI> defaults;
 
     /**
      * Create an Authorization object from a graph and an identifier
@@ -56,27 +78,85 @@ public class Authorization {
         return new Authorization(identifier, graph);
     }
 
+    /**
+     * Create a builder for an Authorization object
+     * @param identifier the identifier
+     * @return the builder
+     */
+    public static Builder builder(final BlankNodeOrIRI identifier) {
+        return new Builder(identifier);
+    }
+
     /**
      * Create an Authorization object from an RDF graph
      * @param identifier the subject IRI
      * @param graph the RDF graph
      */
     public Authorization(final BlankNodeOrIRI identifier, final Graph graph) {
+        this(read(identifier, graph));
+    }
+
+    private Authorization(final Builder builder) {
+        this.identifier = builder.identifier;
+        this.agent = compact(builder.agent);
+        this.agentClass = compact(builder.agentClass);
+        this.agentGroup = compact(builder.agentGroup);
+        this.mode = compactModes(builder.mode);
+        this.accessTo = compact(builder.accessTo);
+        this.defaults = compact(builder.defaults);
+    }
+
+    private static Builder read(final BlankNodeOrIRI identifier, final Graph graph) {
         requireNonNull(identifier, "The Authorization identifier may not be null!");
         requireNonNull(graph, "The input graph may not be null!");
 
-        this.identifier = identifier;
+        final Builder builder = new Builder(identifier);
+        graph.stream(identifier, null, null).forEachOrdered(builder::add);
+        return builder;
+    }
+
+    /**
+     * Create Authorization objects for all of the subjects in a stream of triples
+     *
+     * <p>The triples are read in a single pass, grouped by subject. Only triples with one of the predicates
+     * used by an Authorization and an IRI object are retained, so subjects without any such triples are
+     * skipped.</p>
+     *
+     * @param triples the triples
+     * @return the Authorization objects, in the order in which their subjects first appear
+     */
+    static List<Authorization> parse(final Stream<? extends Triple> triples) {
+        final Map<BlankNodeOrIRI, Builder> data = new LinkedHashMap<>();
+        triples.filter(Authorization::isRelevant).forEachOrdered(triple ->
+                data.computeIfAbsent(triple.getSubject(), Builder::new).add(triple));
+        return data.values().stream().map(Builder::build).collect(toList());
+    }
 
-        this.dataMap.put(ACL.agent, new HashSet<>());
-        this.dataMap.put(ACL.agentClass, new HashSet<>());
-        this.dataMap.put(ACL.agentGroup, new HashSet<>());
-        this.dataMap.put(ACL.mode, new HashSet<>());
-        this.dataMap.put(ACL.accessTo, new HashSet<>());
-        this.dataMap.put(ACL.default_, new HashSet<>());
+    private static boolean isRelevant(final Triple triple) {
+        final IRI predicate = triple.getPredicate();
+        return triple.getObject() instanceof IRI && (ACL.agent.equals(predicate) || ACL.agentClass.equals(predicate)
+                || ACL.agentGroup.equals(predicate) || ACL.mode.equals(predicate) || ACL.accessTo.equals(predicate)
+                || ACL.default_.equals(predicate));
+    }
 
-        graph.stream(identifier, null, null).filter(triple -> dataMap.containsKey(triple.getPredicate()))
-            .filter(triple -> triple.getObject() instanceof IRI)
-            .forEachOrdered(triple -> dataMap.get(triple.getPredicate()).add((IRI) triple.getObject()));
+    private static Set<IRI> compact(final Set<IRI> values) {
+        if (isNull(values) || values.isEmpty()) {
+            return emptySet();
+        } else if (values.size() == 1) {
+            return singleton(values.iterator().next());
+        } else if (values.size() <= ARRAY_SET_MAX) {
+            return new ArraySet(values.toArray(new IRI[values.size()]));
+        }
+        return unmodifiableSet(new HashSet<>(values));
+    }
+
+    private static Set<IRI> compactModes(final Set<IRI> values) {
+        if (isNull(values)) {
+            return ModeSet.NONE;
+        }
+        final ModeSet modes = ModeSet.of(ModeSet.maskOf(values));
+        // Values other than the WebAC modes are rare, but are retained
+        return modes.size() == values.size() ? modes : compact(values);
     }
 
     /**
@@ -92,7 +172,7 @@ public class Authorization {
      * @return the Agent values
      */
     public Set<IRI> getAgent() {
-        return unmodifiableSet(dataMap.get(ACL.agent));
+        return agent;
     }
 
     /**
@@ -100,7 +180,7 @@ public class Authorization {
      * @return the Agent class values
      */
     public Set<IRI> getAgentClass() {
-        return unmodifiableSet(dataMap.get(ACL.agentClass));
+        return agentClass;
     }
 
     /**
@@ -108,7 +188,7 @@ public class Authorization {
      * @return the Agent groups values
      */
     public Set<IRI> getAgentGroup() {
-        return unmodifiableSet(dataMap.get(ACL.agentGroup));
+        return agentGroup;
     }
 
     /**
@@ -116,7 +196,7 @@ public class Authorization {
      * @return the access mode values
      */
     public Set<IRI> getMode() {
-        return unmodifiableSet(dataMap.get(ACL.mode));
+        return mode;
     }
 
     /**
@@ -124,7 +204,7 @@ public class Authorization {
      * @return the accessTo values
      */
     public Set<IRI> getAccessTo() {
-        return unmodifiableSet(dataMap.get(ACL.accessTo));
+        return accessTo;
     }
 
     /**
@@ -132,6 +212,158 @@ public class Authorization {
      * @return the resource identifiers
      */
     public Set<IRI> getDefault() {
-        return unmodifiableSet(dataMap.get(ACL.default_));
+        return defaults;
+    }
+
+    /**
+     * A builder for Authorization objects.
+     */
+    public static final class Builder {
+
+        private final BlankNodeOrIRI identifier;
+        private Set<IRI> agent;
+        private Set<IRI> agentClass;
+        private Set<IRI> agentGroup;
+        private Set<IRI> mode;
+        private Set<IRI> accessTo;
+        private Set<IRI> defaults;
+
+        private Builder(final BlankNodeOrIRI identifier) {
+            requireNonNull(identifier, "The Authorization identifier may not be null!");
+            this.identifier = identifier;
+        }
+
+        /**
+         * Add an agent
+         * @param value the agent
+         * @return this builder
+         */
+        public Builder addAgent(final IRI value) {
+            agent = add(agent, value);
+            return this;
+        }
+
+        /**
+         * Add an agent class
+         * @param value the agent class
+         * @return this builder
+         */
+        public Builder addAgentClass(final IRI value) {
+            agentClass = add(agentClass, value);
+            return this;
+        }
+
+        /**
+         * Add an agent group
+         * @param value the agent group
+         * @return this builder
+         */
+        public Builder addAgentGroup(final IRI value) {
+            agentGroup = add(agentGroup, value);
+            return this;
+        }
+
+        /**
+         * Add an access mode
+         * @param value the access mode
+         * @return this builder
+         */
+        public Builder addMode(final IRI value) {
+            mode = add(mode, value);
+            return this;
+        }
+
+        /**
+         * Add a resource to which the Authorization applies
+         * @param value the resource identifier
+         * @return this builder
+         */
+        public Builder addAccessTo(final IRI value) {
+            accessTo = add(accessTo, value);
+            return this;
+        }
+
+        /**
+         * Add a container whose new resources the Authorization applies to
+         * @param value the container identifier
+         * @return this builder
+         */
+        public Builder addDefault(final IRI value) {
+            defaults = add(defaults, value);
+            return this;
+        }
+
+        /**
+         * Build the Authorization object
+         * @return the Authorization object
+         */
+        public Authorization build() {
+            return new Authorization(this);
+        }
+
+        private void add(final Triple triple) {
+            if (triple.getObject() instanceof IRI) {
+                final IRI predicate = triple.getPredicate();
+                final IRI object = (IRI) triple.getObject();
+                if (ACL.agent.equals(predicate)) {
+                    addAgent(object);
+                } else if (ACL.agentClass.equals(predicate)) {
+                    addAgentClass(object);
+                } else if (ACL.agentGroup.equals(predicate)) {
+                    addAgentGroup(object);
+                } else if (ACL.mode.equals(predicate)) {
+                    addMode(object);
+                } else if (ACL.accessTo.equals(predicate)) {
+                    addAccessTo(object);
+                } else if (ACL.default_.equals(predicate)) {
+                    addDefault(object);
+                }
+            }
+        }
+
+        private static Set<IRI> add(final Set<IRI> values, final IRI value) {
+            requireNonNull(value, "An Authorization value may not be null!");
+            final Set<IRI> set = isNull(values) ? new LinkedHashSet<>() : values;
+            set.add(IriPool.getPool().intern(value));
+            return set;
+        }
+    }
+
+    /**
+     * An immutable set of a few IRIs, backed by an array.
+     */
+    private static final class ArraySet extends AbstractSet<IRI> {
+
+        private final IRI[] values;
+
+        private ArraySet(final IRI[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public boolean contains(final Object value) {
+            // Pooled values are usually compared by identity first
+            for (final IRI iri : values) {
+                if (iri == value) {
+                    return true;
+                }
+            }
+            for (final IRI iri : values) {
+                if (iri.equals(value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public Iterator<IRI> iterator() {
+            return Arrays.asList(values).iterator();
+        }
     }
 }
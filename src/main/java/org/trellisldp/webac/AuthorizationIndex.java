@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.rdf.api.IRI;
+import org.trellisldp.vocabulary.ACL;
+import org.trellisldp.vocabulary.FOAF;
+
+/**
+ * A set of authorizations, indexed by the agents to which they apply.
+ *
+ * <p>The access modes of the authorizations are folded into a bitmask per acl:agent and per acl:agentGroup,
+ * and into one bitmask each for the foaf:Agent and acl:AuthenticatedAgent classes. The modes that an agent is
+ * granted directly are then found with a single hash lookup, however many per-agent authorizations an ACL
+ * holds, and only the groups that could grant further modes need to be checked.</p>
+ *
+ * @author acoburn
+ */
+final class AuthorizationIndex {
+
+    /** An index without any authorizations. */
+    static final AuthorizationIndex EMPTY = new AuthorizationIndex(emptyList());
+
+    private final List<Authorization> authorizations;
+    private final Map<IRI, Integer> agents;
+    private final Map<IRI, Integer> groups;
+    private final int everyone;
+    private final int authenticated;
+
+    /**
+     * Create an index
+     * @param authorizations the authorizations
+     */
+    AuthorizationIndex(final List<Authorization> authorizations) {
+        final Map<IRI, Integer> agentModes = new HashMap<>();
+        final Map<IRI, Integer> groupModes = new HashMap<>();
+        int everyoneModes = 0;
+        int authenticatedModes = 0;
+        for (final Authorization auth : authorizations) {
+            final int modes = ModeSet.maskOf(auth.getMode());
+            if (modes == 0) {
+                continue;
+            }
+            if (auth.getAgentClass().contains(FOAF.Agent)) {
+                everyoneModes |= modes;
+            }
+            if (auth.getAgentClass().contains(ACL.AuthenticatedAgent)) {
+                authenticatedModes |= modes;
+            }
+            auth.getAgent().forEach(agent -> agentModes.merge(agent, modes, (a, b) -> a | b));
+            auth.getAgentGroup().forEach(group -> groupModes.merge(group, modes, (a, b) -> a | b));
+        }
+        this.authorizations = unmodifiableList(authorizations);
+        this.agents = agentModes.isEmpty() ? emptyMap() : agentModes;
+        this.groups = groupModes.isEmpty() ? emptyMap() : unmodifiableMap(groupModes);
+        this.everyone = everyoneModes;
+        this.authenticated = authenticatedModes;
+    }
+
+    /**
+     * Get the authorizations
+     * @return the authorizations
+     */
+    List<Authorization> getAuthorizations() {
+        return authorizations;
+    }
+
+    /**
+     * Get the modes that are granted to an agent directly, by acl:agent or acl:agentClass
+     * @param agent the agent
+     * @param isAuthenticated whether the agent is authenticated
+     * @return the bitmask of the granted modes
+     */
+    int getModes(final IRI agent, final boolean isAuthenticated) {
+        final int modes = everyone | (isAuthenticated ? authenticated : 0);
+        final Integer agentModes = agents.get(agent);
+        return agentModes == null ? modes : modes | agentModes;
+    }
+
+    /**
+     * Get the groups named by the authorizations
+     * @return the groups, each with the bitmask of the modes that membership would grant
+     */
+    Map<IRI, Integer> getGroups() {
+        return groups;
+    }
+}
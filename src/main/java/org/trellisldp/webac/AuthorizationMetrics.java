@@ -0,0 +1,47 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+/**
+ * A receiver for metrics about the authorization decisions made by the {@link WebACService}.
+ *
+ * <p>Implementations are called on the request path, once or twice per decision, and must therefore be
+ * cheap and thread-safe. An implementation may be provided directly to the {@link WebACService}, or it may
+ * be registered with the {@link java.util.ServiceLoader}; if no implementation is registered, metrics are
+ * published via JMX.</p>
+ *
+ * @author acoburn
+ */
+public interface AuthorizationMetrics {
+
+    /**
+     * Record a completed authorization decision
+     * @param nanos the time taken by the decision, in nanoseconds
+     * @param backendCalls the number of resources read from the resource service
+     * @param depth the number of steps taken up the resource hierarchy
+     * @param groupLookups the number of group membership checks
+     */
+    void recordDecision(long nanos, int backendCalls, int depth, int groupLookups);
+
+    /**
+     * Record a decision that was read from the cache
+     */
+    void recordCacheHit();
+
+    /**
+     * Record a decision that was not found in the cache
+     * @param loadNanos the time taken to compute and load the decision, in nanoseconds
+     */
+    void recordCacheMiss(long loadNanos);
+}
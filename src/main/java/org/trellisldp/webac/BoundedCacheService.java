@@ -0,0 +1,280 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.lang.System.nanoTime;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+import org.trellisldp.api.CacheService;
+
+/**
+ * A bounded, in-memory {@link CacheService} that is tuned for authorization decisions.
+ *
+ * <p>The cache is split into independently locked segments, so that concurrent lookups for different keys
+ * rarely contend. Each segment keeps its entries in least-recently-used order and bounds their total weight.
+ * When a segment is full, a new entry is only admitted if it has been requested at least as often (according to
+ * a small frequency sketch) as the least-recently-used entry that it would displace: a burst of one-off keys
+ * therefore cannot flush the frequently used decisions from the cache. Entries may also expire a fixed time
+ * after they were loaded.</p>
+ *
+ * <p>Values are computed outside of any lock. If two threads miss on the same key at the same time, both
+ * compute the value and the first one to finish is kept. A null value is returned but not cached.</p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @author acoburn
+ */
+public class BoundedCacheService<K, V> implements CacheService<K, V> {
+
+    private static final int MIN_SEGMENT_WEIGHT = 16;
+
+    private final Segment<K, V>[] segments;
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    private final long expiry;
+
+    /**
+     * Create a bounded cache
+     * @param maximumSize the maximum number of entries
+     */
+    public BoundedCacheService(final long maximumSize) {
+        this(maximumSize, null);
+    }
+
+    /**
+     * Create a bounded cache with expiring entries
+     * @param maximumSize the maximum number of entries
+     * @param expiry the time after which an entry expires (may be null if entries should not expire)
+     */
+    public BoundedCacheService(final long maximumSize, final Duration expiry) {
+        this(maximumSize, (k, v) -> 1, expiry);
+    }
+
+    /**
+     * Create a weight-bounded cache with expiring entries
+     * @param maximumWeight the maximum total weight of the entries
+     * @param weigher a function that computes the (non-negative) weight of an entry
+     * @param expiry the time after which an entry expires (may be null if entries should not expire)
+     */
+    @SuppressWarnings("unchecked")
+    public BoundedCacheService(final long maximumWeight, final ToIntBiFunction<? super K, ? super V> weigher,
+            final Duration expiry) {
+        requireNonNull(weigher, "A non-null weigher must be provided!");
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("The maximum weight must be positive!");
+        }
+        this.weigher = weigher;
+        this.expiry = expiry == null ? Long.MAX_VALUE : expiry.toNanos();
+
+        final int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+        final int count = (int) Math.max(1L, Math.min(stripes,
+                    Long.highestOneBit(Math.max(1L, maximumWeight / MIN_SEGMENT_WEIGHT))));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; ++i) {
+            segments[i] = new Segment<>(maximumWeight / count + (i < maximumWeight % count ? 1 : 0));
+        }
+    }
+
+    @Override
+    public V get(final K key, final Function<? super K, ? extends V> mappingFunction) {
+        final int hash = spread(key.hashCode());
+        final Segment<K, V> segment = segments[(hash >>> 16) & (segments.length - 1)];
+        final V cached = segment.get(key, hash);
+        if (cached != null) {
+            return cached;
+        }
+        final V value = mappingFunction.apply(key);
+        if (value == null) {
+            return null;
+        }
+        final long expires = expiry == Long.MAX_VALUE ? Long.MAX_VALUE : nanoTime() + expiry;
+        return segment.put(key, hash, value, Math.max(0, weigher.applyAsInt(key, value)), expires);
+    }
+
+    /**
+     * Get the number of entries in the cache
+     * @return the number of entries
+     */
+    public long size() {
+        long size = 0L;
+        for (final Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Get the total weight of the entries in the cache
+     * @return the total weight
+     */
+    public long weightedSize() {
+        long weight = 0L;
+        for (final Segment<K, V> segment : segments) {
+            weight += segment.weight();
+        }
+        return weight;
+    }
+
+    /**
+     * Remove all entries from the cache
+     */
+    public void invalidateAll() {
+        for (final Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private static int spread(final int hash) {
+        final int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 15);
+    }
+
+    private static final class Segment<K, V> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<K, Node<V>> data = new LinkedHashMap<>(16, 0.75f, true);
+        private final FrequencySketch sketch;
+        private final long maximumWeight;
+        private long weight;
+
+        private Segment(final long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+            this.sketch = new FrequencySketch(maximumWeight);
+        }
+
+        private V get(final K key, final int hash) {
+            lock.lock();
+            try {
+                sketch.increment(hash);
+                final Node<V> node = data.get(key);
+                if (node == null) {
+                    return null;
+                } else if (node.isExpired()) {
+                    remove(key);
+                    return null;
+                }
+                return node.value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private V put(final K key, final int hash, final V value, final int entryWeight, final long expires) {
+            lock.lock();
+            try {
+                final Node<V> existing = data.get(key);
+                if (existing != null && !existing.isExpired()) {
+                    return existing.value;
+                } else if (existing != null) {
+                    remove(key);
+                }
+                if (entryWeight > maximumWeight) {
+                    return value;
+                }
+                data.put(key, new Node<>(value, hash, entryWeight, expires));
+                weight += entryWeight;
+                evict(key, hash);
+                return value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Evict the least-recently-used entries until the segment is within its bounds, unless the new entry
+        // has been seen less often than the first live entry that it would displace, in which case the new entry is
+        // dropped and nothing else is removed. Ties are admitted, so that a key that replaces an equally popular one
+        // (such as a new revision of a CacheKey, which has the same hash code) is not rejected over and over.
+        private void evict(final K candidate, final int hash) {
+            if (weight <= maximumWeight) {
+                return;
+            }
+            for (final Map.Entry<K, Node<V>> entry : data.entrySet()) {
+                if (!entry.getKey().equals(candidate) && !entry.getValue().isExpired()) {
+                    if (sketch.frequency(hash) < sketch.frequency(entry.getValue().hash)) {
+                        remove(candidate);
+                        return;
+                    }
+                    break;
+                }
+            }
+            final Iterator<Map.Entry<K, Node<V>>> iter = data.entrySet().iterator();
+            while (weight > maximumWeight && iter.hasNext()) {
+                final Map.Entry<K, Node<V>> victim = iter.next();
+                if (!victim.getKey().equals(candidate)) {
+                    iter.remove();
+                    weight -= victim.getValue().weight;
+                }
+            }
+        }
+
+        private void remove(final K key) {
+            final Node<V> node = data.remove(key);
+            if (node != null) {
+                weight -= node.weight;
+            }
+        }
+
+        private int size() {
+            lock.lock();
+            try {
+                return data.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private long weight() {
+            lock.lock();
+            try {
+                return weight;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void clear() {
+            lock.lock();
+            try {
+                data.clear();
+                weight = 0L;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Node<V> {
+        private final V value;
+        private final int hash;
+        private final int weight;
+        private final long expires;
+
+        private Node(final V value, final int hash, final int weight, final long expires) {
+            this.value = value;
+            this.hash = hash;
+            this.weight = weight;
+            this.expires = expires;
+        }
+
+        private boolean isExpired() {
+            return expires != Long.MAX_VALUE && nanoTime() - expires > 0;
+        }
+    }
+}
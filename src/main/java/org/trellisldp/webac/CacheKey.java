@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * The key under which an authorization decision is cached by the {@link WebACService}.
+ *
+ * <p>A key holds references to the resource and agent IRIs, rather than a copy of their string values,
+ * and its hash code is computed once, when the key is created. A key also carries a revision: when anything on
+ * which the cached decisions for a resource depend has changed, subsequent lookups for the resource use a new
+ * revision, and entries created under the previous one are simply never read again. This does not depend on
+ * the cached values, so a cache may copy or serialize them. Keys that differ only in their revision have the
+ * same hash code.</p>
+ *
+ * <p>For a delegated session, the key also holds the delegating agent, so that the combined decision (the
+ * modes granted to both agents) is cached as a single entry.</p>
+ *
+ * @author acoburn
+ */
+public final class CacheKey {
+
+    private final IRI identifier;
+    private final IRI agent;
+    private final IRI delegate;
+    private final long revision;
+    private final int hash;
+
+    /**
+     * Create a cache key
+     * @param identifier the resource identifier
+     * @param agent the agent
+     */
+    CacheKey(final IRI identifier, final IRI agent) {
+        this(identifier, agent, null, 0L);
+    }
+
+    /**
+     * Create a cache key
+     * @param identifier the resource identifier
+     * @param agent the agent
+     * @param delegate the delegating agent (may be null if the session is not delegated)
+     * @param revision the revision under which the decision is cached
+     */
+    CacheKey(final IRI identifier, final IRI agent, final IRI delegate, final long revision) {
+        this.identifier = requireNonNull(identifier, "The identifier may not be null!");
+        this.agent = requireNonNull(agent, "The agent may not be null!");
+        this.delegate = delegate;
+        this.revision = revision;
+        // The revision is left out of the hash code, so that a frequency-based cache such as the
+        // BoundedCacheService credits a new revision with the popularity of the previous ones
+        this.hash = 31 * (31 * identifier.hashCode() + agent.hashCode()) + Objects.hashCode(delegate);
+    }
+
+    /**
+     * Get the resource identifier
+     * @return the identifier
+     */
+    public IRI getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * Get the agent
+     * @return the agent
+     */
+    public IRI getAgent() {
+        return agent;
+    }
+
+    /**
+     * Get the delegating agent
+     * @return the delegating agent, if any
+     */
+    public Optional<IRI> getDelegatedBy() {
+        return Optional.ofNullable(delegate);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof CacheKey)) {
+            return false;
+        }
+        final CacheKey key = (CacheKey) other;
+        return hash == key.hash && revision == key.revision && identifier.equals(key.identifier)
+            && agent.equals(key.agent) && Objects.equals(delegate, key.delegate);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheKey{" + identifier + ", " + agent + (delegate == null ? "" : ", " + delegate) + ", "
+            + revision + "}";
+    }
+}
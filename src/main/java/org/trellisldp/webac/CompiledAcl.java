@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.util.Collections.unmodifiableSet;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.trellisldp.api.Resource;
+
+/**
+ * The parsed, immutable form of the ACL attached to a single resource.
+ *
+ * <p>The authorizations are partitioned once, at parse time, into those that apply to the resource
+ * itself (acl:accessTo) and those that are inherited by its descendants (acl:default, falling back
+ * to acl:accessTo when there are no acl:default authorizations), and each partition is indexed by agent.</p>
+ *
+ * @author acoburn
+ */
+final class CompiledAcl {
+
+    private final IRI identifier;
+    private final Instant modified;
+    private final AuthorizationIndex accessTo;
+    private final AuthorizationIndex inherited;
+    private final Set<IRI> agentGroups;
+
+    /**
+     * Create a compiled ACL
+     * @param resource the resource holding the ACL
+     * @param authorizations the authorizations parsed from the ACL
+     */
+    CompiledAcl(final Resource resource, final List<Authorization> authorizations) {
+        this.identifier = resource.getIdentifier();
+        this.modified = resource.getModified();
+        this.accessTo = new AuthorizationIndex(authorizations.stream()
+                .filter(auth -> auth.getAccessTo().contains(identifier)).collect(toList()));
+        final List<Authorization> defaults = authorizations.stream()
+                .filter(auth -> auth.getDefault().contains(identifier)).collect(toList());
+        this.inherited = defaults.isEmpty() ? accessTo : new AuthorizationIndex(defaults);
+        this.agentGroups = unmodifiableSet(Stream.concat(accessTo.getAuthorizations().stream(),
+                    inherited.getAuthorizations().stream()).flatMap(auth -> auth.getAgentGroup().stream())
+                .collect(toSet()));
+    }
+
+    /**
+     * Get the identifier of the resource holding the ACL
+     * @return the identifier
+     */
+    IRI getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * Get the authorizations that apply to the resource itself
+     * @return the authorizations
+     */
+    AuthorizationIndex getAccessTo() {
+        return accessTo;
+    }
+
+    /**
+     * Get the authorizations that are inherited by descendant resources
+     * @return the authorizations
+     */
+    AuthorizationIndex getInherited() {
+        return inherited;
+    }
+
+    /**
+     * Get the groups referenced by the applicable authorizations of this ACL
+     * @return the group identifiers
+     */
+    Set<IRI> getAgentGroups() {
+        return agentGroups;
+    }
+
+    /**
+     * Determine whether this compiled ACL still reflects the given resource
+     * @param resource the resource
+     * @return true if the resource has not been modified since the ACL was compiled
+     */
+    boolean isCurrent(final Resource resource) {
+        return identifier.equals(resource.getIdentifier()) && Objects.equals(modified, resource.getModified());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * A cached access decision.
+ *
+ * <p>The granted modes are stamped with the effective ACL source from which they were derived, so that the
+ * validity of the decisions cached for a resource can be checked against later changes without resolving the
+ * ACL source again.</p>
+ *
+ * @author acoburn
+ */
+final class Decision extends AbstractSet<IRI> {
+
+    private final ModeSet modes;
+    private final IRI source;
+
+    /**
+     * Create a decision
+     * @param modes the granted modes
+     * @param source the effective ACL source (may be null if the resource has no effective ACL)
+     */
+    Decision(final ModeSet modes, final IRI source) {
+        this.modes = modes;
+        this.source = source;
+    }
+
+    /**
+     * Get the granted modes
+     * @return the modes
+     */
+    ModeSet getModes() {
+        return modes;
+    }
+
+    /**
+     * Get the effective ACL source
+     * @return the source, or null if the resource has no effective ACL
+     */
+    IRI getSource() {
+        return source;
+    }
+
+    @Override
+    public boolean contains(final Object mode) {
+        return modes.contains(mode);
+    }
+
+    @Override
+    public Iterator<IRI> iterator() {
+        return modes.iterator();
+    }
+
+    @Override
+    public int size() {
+        return modes.size();
+    }
+}
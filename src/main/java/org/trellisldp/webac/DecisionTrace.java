@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * The counters collected while a single authorization decision is made.
+ *
+ * <p>A trace is bound to the thread that evaluates a decision, so that the code that reads resources or walks
+ * the resource hierarchy can count its work without the trace being passed along explicitly. A trace may be
+ * bound to several threads at once (e.g. for parallel group checks), so the counters are updated atomically.</p>
+ *
+ * @author acoburn
+ */
+final class DecisionTrace {
+
+    private static final ThreadLocal<DecisionTrace> CURRENT = new ThreadLocal<>();
+
+    private static final AtomicIntegerFieldUpdater<DecisionTrace> BACKEND_CALLS =
+        AtomicIntegerFieldUpdater.newUpdater(DecisionTrace.class, "backendCalls");
+    private static final AtomicIntegerFieldUpdater<DecisionTrace> DEPTH =
+        AtomicIntegerFieldUpdater.newUpdater(DecisionTrace.class, "depth");
+    private static final AtomicIntegerFieldUpdater<DecisionTrace> GROUP_LOOKUPS =
+        AtomicIntegerFieldUpdater.newUpdater(DecisionTrace.class, "groupLookups");
+
+    private volatile int backendCalls;
+    private volatile int depth;
+    private volatile int groupLookups;
+    private volatile long cacheLoadNanos = -1L;
+
+    /**
+     * Bind a trace to the current thread
+     * @param trace the trace (may be null to unbind any trace)
+     * @return the trace that was previously bound to the current thread, or null
+     */
+    static DecisionTrace bind(final DecisionTrace trace) {
+        final DecisionTrace previous = CURRENT.get();
+        if (trace == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(trace);
+        }
+        return previous;
+    }
+
+    /**
+     * Get the trace bound to the current thread
+     * @return the trace, or null if no trace is bound
+     */
+    static DecisionTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Count a read from the resource service
+     */
+    static void backendCall() {
+        final DecisionTrace trace = CURRENT.get();
+        if (trace != null) {
+            BACKEND_CALLS.incrementAndGet(trace);
+        }
+    }
+
+    /**
+     * Count a step up the resource hierarchy
+     */
+    static void step() {
+        final DecisionTrace trace = CURRENT.get();
+        if (trace != null) {
+            DEPTH.incrementAndGet(trace);
+        }
+    }
+
+    /**
+     * Count a group membership check
+     */
+    static void groupLookup() {
+        final DecisionTrace trace = CURRENT.get();
+        if (trace != null) {
+            GROUP_LOOKUPS.incrementAndGet(trace);
+        }
+    }
+
+    /**
+     * Record that the decision was loaded into the cache
+     * @param nanos the time taken by the load, in nanoseconds
+     */
+    static void cacheLoad(final long nanos) {
+        final DecisionTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.cacheLoadNanos = nanos;
+        }
+    }
+
+    /**
+     * Report the trace
+     * @param metrics the metrics receiver
+     * @param nanos the time taken by the decision, in nanoseconds
+     * @param cached whether the decision was made through a cache
+     */
+    void report(final AuthorizationMetrics metrics, final long nanos, final boolean cached) {
+        metrics.recordDecision(nanos, backendCalls, depth, groupLookups);
+        if (cached) {
+            final long loadNanos = cacheLoadNanos;
+            if (loadNanos < 0) {
+                metrics.recordCacheHit();
+            } else {
+                metrics.recordCacheMiss(loadNanos);
+            }
+        }
+    }
+}
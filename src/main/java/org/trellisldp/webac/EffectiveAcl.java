@@ -0,0 +1,71 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * The effective ACL source for a resource: the nearest resource (itself or an ancestor) that holds an ACL,
+ * and whether the acl:accessTo or the inherited (acl:default) authorizations of that ACL apply.
+ *
+ * @author acoburn
+ */
+final class EffectiveAcl {
+
+    private final IRI source;
+    private final boolean inherited;
+
+    /**
+     * Create an effective ACL source
+     * @param source the identifier of the resource holding the ACL
+     * @param inherited whether the ACL is inherited from an ancestor
+     */
+    EffectiveAcl(final IRI source, final boolean inherited) {
+        this.source = source;
+        this.inherited = inherited;
+    }
+
+    /**
+     * Get the identifier of the resource holding the ACL
+     * @return the identifier
+     */
+    IRI getSource() {
+        return source;
+    }
+
+    /**
+     * Whether the ACL is inherited from an ancestor
+     * @return true if the acl:default authorizations apply; false if the acl:accessTo authorizations apply
+     */
+    boolean isInherited() {
+        return inherited;
+    }
+
+    /**
+     * Get the effective ACL source as seen by a child resource without its own ACL
+     * @return the effective ACL source for the child
+     */
+    EffectiveAcl inherit() {
+        return inherited ? this : new EffectiveAcl(source, true);
+    }
+
+    /**
+     * Select the applicable authorizations from a compiled ACL
+     * @param acl the compiled ACL for the source resource
+     * @return the applicable authorizations
+     */
+    AuthorizationIndex select(final CompiledAcl acl) {
+        return inherited ? acl.getInherited() : acl.getAccessTo();
+    }
+}
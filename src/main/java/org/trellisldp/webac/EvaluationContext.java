@@ -0,0 +1,89 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.rdf.api.IRI;
+import org.trellisldp.api.AccessControlService;
+import org.trellisldp.api.Session;
+
+/**
+ * A request-scoped context for making several authorization decisions.
+ *
+ * <p>A context is opened with {@link WebACService#openContext} around the checks needed by a single
+ * operation (e.g. the target resource and its parent, for any number of agents). Within a context, ancestors,
+ * ACLs and group memberships are resolved at most once, and each (resource, agent, delegate) decision is made
+ * at most once. Because a context is short-lived, it does not need to be invalidated: once it is closed, all
+ * of its memoized data is released and the context may no longer be used.</p>
+ *
+ * @author acoburn
+ */
+public final class EvaluationContext implements AccessControlService, AutoCloseable {
+
+    private final WebACService service;
+    private final Map<CacheKey, ModeSet> decisions = new ConcurrentHashMap<>();
+    private volatile AclResolver resolver;
+
+    /**
+     * Create an evaluation context
+     * @param service the authorization service
+     * @param resolver the resolver shared by the decisions made in this context
+     */
+    EvaluationContext(final WebACService service, final AclResolver resolver) {
+        this.service = service;
+        this.resolver = resolver;
+    }
+
+    @Override
+    public Set<IRI> getAccessModes(final IRI identifier, final Session session) {
+        requireNonNull(identifier, "A non-null identifier must be provided!");
+        requireNonNull(session, "A non-null session must be provided!");
+        final AclResolver lookup = resolver;
+        if (lookup == null) {
+            throw new IllegalStateException("This evaluation context has been closed");
+        }
+
+        final CacheKey key = new CacheKey(identifier, session.getAgent(), session.getDelegatedBy().orElse(null), 0L);
+        final ModeSet cached = decisions.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        final ModeSet modes = service.getAccessModes(identifier, session, lookup);
+        decisions.put(key, modes);
+        return modes;
+    }
+
+    /**
+     * Determine whether a session has been granted a single access mode on a resource
+     * @param identifier the resource identifier
+     * @param session the agent's session
+     * @param mode the access mode, e.g. acl:Read
+     * @return true if the mode is granted
+     */
+    public boolean hasAccess(final IRI identifier, final Session session, final IRI mode) {
+        requireNonNull(mode, "A non-null access mode must be provided!");
+        return getAccessModes(identifier, session).contains(mode);
+    }
+
+    @Override
+    public void close() {
+        resolver = null;
+        decisions.clear();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+/**
+ * A small count-min sketch that estimates how often a key has been seen recently.
+ *
+ * <p>The sketch holds four rows of saturating counters (at most 15). Once the number of recorded
+ * occurrences reaches ten times the width of the sketch, every counter is halved, so that the
+ * estimates favour recent activity. A sketch is not thread-safe.</p>
+ *
+ * @author acoburn
+ */
+final class FrequencySketch {
+
+    private static final int[] SEEDS = new int[]{0x97cb3127, 0x9e3779b9, 0xc2b2ae35, 0x85ebca6b};
+    private static final int MAX_COUNT = 15;
+    private static final long MAX_WIDTH = 1L << 14;
+
+    private final byte[][] rows;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * Create a frequency sketch
+     * @param capacity the number of distinct keys the sketch should be able to tell apart (the sketch is
+     *                 never wider than 16384 counters per row)
+     */
+    FrequencySketch(final long capacity) {
+        final int width = Integer.highestOneBit((int) Math.min(Math.max(capacity * 2, 64L), MAX_WIDTH) * 2 - 1);
+        this.rows = new byte[SEEDS.length][width];
+        this.mask = width - 1;
+        this.sampleSize = width * 10;
+    }
+
+    /**
+     * Estimate the frequency of a key
+     * @param hash the hash code of the key
+     * @return the estimated frequency, from 0 to 15
+     */
+    int frequency(final int hash) {
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < rows.length; ++i) {
+            frequency = Math.min(frequency, rows[i][index(hash, i)]);
+        }
+        return frequency;
+    }
+
+    /**
+     * Record an occurrence of a key
+     * @param hash the hash code of the key
+     */
+    void increment(final int hash) {
+        boolean added = false;
+        for (int i = 0; i < rows.length; ++i) {
+            final int idx = index(hash, i);
+            if (rows[i][idx] < MAX_COUNT) {
+                rows[i][idx]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (final byte[] row : rows) {
+            for (int i = 0; i < row.length; ++i) {
+                row[i] >>= 1;
+            }
+        }
+        additions >>= 1;
+    }
+
+    private int index(final int hash, final int row) {
+        final int h = (hash + SEEDS[row]) * SEEDS[row];
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
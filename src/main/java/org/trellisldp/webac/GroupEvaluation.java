@@ -0,0 +1,170 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * Evaluate the acl:agentGroup memberships of an agent in parallel.
+ *
+ * <p>Each group carries the access modes that membership in that group would grant. The membership checks are
+ * submitted to an executor, and the calling thread also works through any check that has not yet been started,
+ * so that an evaluation never waits on a saturated executor. As soon as the granted modes cover everything
+ * that the remaining groups could add, the evaluation completes and any check that has not yet started is
+ * skipped. When the checks are cheap, they can instead be run in order on the calling thread.</p>
+ *
+ * @author acoburn
+ */
+final class GroupEvaluation {
+
+    private final Predicate<IRI> isMember;
+    private final DecisionTrace trace = DecisionTrace.current();
+    private final int target;
+    private final AtomicInteger granted;
+    private final AtomicInteger remaining;
+    private final CompletableFuture<Integer> done = new CompletableFuture<>();
+
+    private GroupEvaluation(final Predicate<IRI> isMember, final int granted, final int target,
+            final int checks) {
+        this.isMember = isMember;
+        this.target = target;
+        this.granted = new AtomicInteger(granted);
+        this.remaining = new AtomicInteger(checks);
+    }
+
+    /**
+     * Evaluate group memberships
+     * @param groups the groups to check, each with the bitmask of the modes that membership would grant
+     * @param granted the bitmask of the modes that are already granted
+     * @param isMember a predicate that tests whether the agent is a member of a group
+     * @param executor the executor on which membership checks are run
+     * @return the bitmask of the granted modes, including those granted through group membership
+     */
+    static int evaluate(final Map<IRI, Integer> groups, final int granted, final Predicate<IRI> isMember,
+            final Executor executor) {
+        final int target = groups.values().stream().reduce(granted, (a, b) -> a | b);
+        if (groups.isEmpty() || target == granted) {
+            return granted;
+        }
+
+        final GroupEvaluation evaluation = new GroupEvaluation(isMember, granted, target, groups.size());
+        final List<Check> checks = new ArrayList<>(groups.size());
+        groups.forEach((group, modes) -> checks.add(evaluation.new Check(group, modes)));
+
+        // The first check is always run on the calling thread
+        checks.stream().skip(1).forEach(check -> {
+            try {
+                executor.execute(check);
+            } catch (final RejectedExecutionException ex) {
+                // The calling thread will run the check below
+            }
+        });
+        checks.forEach(Check::run);
+
+        try {
+            return evaluation.done.join();
+        } catch (final CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Evaluate group memberships on the calling thread
+     *
+     * <p>This avoids handing the checks to other threads when each of them is cheap, for instance when the
+     * memberships are already indexed. The groups are checked in order, until the granted modes cover everything
+     * that the remaining groups could add.</p>
+     *
+     * @param groups the groups to check, each with the bitmask of the modes that membership would grant
+     * @param granted the bitmask of the modes that are already granted
+     * @param isMember a predicate that tests whether the agent is a member of a group
+     * @return the bitmask of the granted modes, including those granted through group membership
+     */
+    static int evaluate(final Map<IRI, Integer> groups, final int granted, final Predicate<IRI> isMember) {
+        final int target = groups.values().stream().reduce(granted, (a, b) -> a | b);
+        int modes = granted;
+        for (final Map.Entry<IRI, Integer> group : groups.entrySet()) {
+            if (modes == target) {
+                break;
+            }
+            if ((modes | group.getValue()) != modes) {
+                DecisionTrace.groupLookup();
+                if (isMember.test(group.getKey())) {
+                    modes |= group.getValue();
+                }
+            }
+        }
+        return modes;
+    }
+
+    private boolean isMember(final IRI group) {
+        DecisionTrace.groupLookup();
+        return isMember.test(group);
+    }
+
+    private void grant(final int modes) {
+        if (granted.accumulateAndGet(modes, (a, b) -> a | b) == target) {
+            done.complete(target);
+        }
+    }
+
+    private void finish() {
+        if (remaining.decrementAndGet() == 0) {
+            done.complete(granted.get());
+        }
+    }
+
+    private final class Check implements Runnable {
+        private final IRI group;
+        private final int modes;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private Check(final IRI group, final int modes) {
+            this.group = group;
+            this.modes = modes;
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            final DecisionTrace previous = DecisionTrace.bind(trace);
+            try {
+                if (!done.isDone() && (granted.get() | modes) != granted.get() && isMember(group)) {
+                    grant(modes);
+                }
+            } catch (final RuntimeException ex) {
+                done.completeExceptionally(ex);
+            } finally {
+                DecisionTrace.bind(previous);
+                finish();
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.lang.System.nanoTime;
+import static java.util.Collections.emptySet;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * A bounded index from agents to the acl:agentGroup resources they are members of.
+ *
+ * <p>Each group document is read at most once per expiry period: its vcard:hasMember values are folded into a
+ * reverse (agent to groups) map, so that a membership check becomes a pair of hash lookups. When a group is
+ * evicted, either because it has expired or because the index has reached its maximum size, its members are
+ * unlinked from the reverse map. A group that is loaded while an invalidation is in progress is not indexed.</p>
+ *
+ * @author acoburn
+ */
+final class GroupIndex {
+
+    private final Function<IRI, Set<IRI>> loader;
+    private final int maxGroups;
+    private final long expiry;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final SingleFlight<IRI, Set<IRI>> loads = new SingleFlight<>();
+    private volatile long generation;
+
+    // Both maps are guarded by the lock
+    private final Map<IRI, Group> groups = new LinkedHashMap<>();
+    private final Map<IRI, Set<IRI>> memberships = new HashMap<>();
+
+    /**
+     * Create a group membership index
+     * @param loader a function that loads the members of a group
+     * @param maxGroups the maximum number of groups to index
+     * @param expiry the time after which a group is reloaded (may be null if groups should not expire)
+     */
+    GroupIndex(final Function<IRI, Set<IRI>> loader, final int maxGroups, final Duration expiry) {
+        this.loader = loader;
+        this.maxGroups = maxGroups;
+        this.expiry = expiry == null ? Long.MAX_VALUE : expiry.toNanos();
+    }
+
+    /**
+     * Determine whether an agent is a member of a group
+     * @param agent the agent
+     * @param group the group
+     * @return true if the agent is a member of the group
+     */
+    boolean isMember(final IRI agent, final IRI group) {
+        lock.readLock().lock();
+        try {
+            final Group entry = groups.get(group);
+            if (entry != null && !entry.isExpired()) {
+                return memberships.getOrDefault(agent, emptySet()).contains(group);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return load(group).contains(agent);
+    }
+
+    /**
+     * Determine whether the memberships of a collection of groups are indexed
+     * @param candidates the groups
+     * @return true if every group is indexed and has not expired, so that checking its members is a hash lookup
+     */
+    boolean isIndexed(final Collection<IRI> candidates) {
+        lock.readLock().lock();
+        try {
+            for (final IRI group : candidates) {
+                final Group entry = groups.get(group);
+                if (entry == null || entry.isExpired()) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Remove groups from the index
+     * @param predicate a predicate that selects the groups to remove
+     */
+    void invalidate(final Predicate<IRI> predicate) {
+        lock.writeLock().lock();
+        try {
+            generation += 1;
+            final Iterator<Map.Entry<IRI, Group>> iter = groups.entrySet().iterator();
+            while (iter.hasNext()) {
+                final Map.Entry<IRI, Group> entry = iter.next();
+                if (predicate.test(entry.getKey())) {
+                    iter.remove();
+                    unlink(entry.getKey(), entry.getValue());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The group is indexed before the load completes, so a concurrent check never reads the group again
+    private Set<IRI> load(final IRI group) {
+        return loads.load(group, this::index);
+    }
+
+    private Set<IRI> index(final IRI group) {
+        lock.readLock().lock();
+        try {
+            final Group entry = groups.get(group);
+            if (entry != null && !entry.isExpired()) {
+                return entry.members;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        final long start = generation;
+        final Set<IRI> members = loader.apply(group);
+        lock.writeLock().lock();
+        try {
+            if (generation != start) {
+                // The members may have been read before the invalidation
+                return members;
+            }
+            unlink(group, groups.remove(group));
+            groups.put(group, new Group(members, expiry == Long.MAX_VALUE ? Long.MAX_VALUE : nanoTime() + expiry));
+            members.forEach(member -> memberships.computeIfAbsent(member, k -> new HashSet<>()).add(group));
+
+            final Iterator<Map.Entry<IRI, Group>> iter = groups.entrySet().iterator();
+            while (groups.size() > maxGroups && iter.hasNext()) {
+                final Map.Entry<IRI, Group> eldest = iter.next();
+                iter.remove();
+                unlink(eldest.getKey(), eldest.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return members;
+    }
+
+    private void unlink(final IRI group, final Group entry) {
+        if (entry != null) {
+            entry.members.forEach(member -> {
+                final Set<IRI> memberOf = memberships.get(member);
+                if (memberOf != null && memberOf.remove(group) && memberOf.isEmpty()) {
+                    memberships.remove(member);
+                }
+            });
+        }
+    }
+
+    private static final class Group {
+        private final Set<IRI> members;
+        private final long expires;
+
+        private Group(final Set<IRI> members, final long expires) {
+            this.members = members;
+            this.expires = expires;
+        }
+
+        private boolean isExpired() {
+            return expires != Long.MAX_VALUE && nanoTime() - expires > 0;
+        }
+    }
+}
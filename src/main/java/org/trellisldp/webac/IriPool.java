@@ -0,0 +1,139 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.util.Objects.isNull;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+
+/**
+ * A bounded pool of canonical IRI instances.
+ *
+ * <p>The values read from ACLs (access modes, agents, agent classes, groups and ACL sources) are interned in
+ * the pool, so that each distinct IRI is held once and comparisons between pooled values succeed on identity,
+ * without comparing the full identifier strings. An agent can be exchanged for its pooled instance once per
+ * decision, so that all of the comparisons made during that decision are cheap. The pool also memoizes the
+ * normalized form of group identifiers. The members of groups are not interned: they are only ever looked up by
+ * hash in the group index, and a few large groups would otherwise keep flushing the pool.</p>
+ *
+ * <p>When the pool reaches its maximum size, it is cleared. Instances that were handed out earlier remain
+ * valid; they simply no longer compare by identity with newly pooled values.</p>
+ *
+ * @author acoburn
+ */
+final class IriPool {
+
+    private static final RDF rdf = getInstance();
+
+    private static final IriPool INSTANCE = new IriPool(100000);
+
+    private final Map<String, IRI> canonical = new ConcurrentHashMap<>();
+    private final Map<String, IRI> normalized = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    /**
+     * Create a pool
+     * @param maxSize the maximum number of IRIs to hold
+     */
+    IriPool(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get the pool shared by the authorization service
+     * @return the pool
+     */
+    static IriPool getPool() {
+        return INSTANCE;
+    }
+
+    /**
+     * Add an IRI to the pool
+     * @param iri the IRI
+     * @return the canonical instance of the IRI
+     */
+    IRI intern(final IRI iri) {
+        final IRI existing = canonical.get(iri.getIRIString());
+        if (!isNull(existing)) {
+            return existing;
+        }
+        if (canonical.size() >= maxSize) {
+            canonical.clear();
+        }
+        final IRI previous = canonical.putIfAbsent(iri.getIRIString(), iri);
+        return isNull(previous) ? iri : previous;
+    }
+
+    /**
+     * Get the canonical instance of an IRI, without adding it to the pool
+     * @param iri the IRI
+     * @return the canonical instance, or the IRI itself if it is not pooled
+     */
+    IRI canonical(final IRI iri) {
+        final IRI existing = canonical.get(iri.getIRIString());
+        return isNull(existing) ? iri : existing;
+    }
+
+    /**
+     * Get the normalized form of an IRI
+     * @param iri the IRI
+     * @return the canonical instance of the IRI without any fragment, query or trailing slash
+     * @see #normalize(String)
+     */
+    IRI normalize(final IRI iri) {
+        final IRI existing = normalized.get(iri.getIRIString());
+        if (!isNull(existing)) {
+            return existing;
+        }
+        final String id = normalize(iri.getIRIString());
+        final IRI value = intern(id.equals(iri.getIRIString()) ? iri : rdf.createIRI(id));
+        if (normalized.size() >= maxSize) {
+            normalized.clear();
+        }
+        normalized.put(iri.getIRIString(), value);
+        return value;
+    }
+
+    /**
+     * Get the number of IRIs in the pool
+     * @return the number of IRIs
+     */
+    int size() {
+        return canonical.size();
+    }
+
+    /**
+     * Remove any fragment, query and trailing slash from an identifier
+     *
+     * <p>No new string is created unless the identifier actually changes.</p>
+     *
+     * @param identifier the identifier
+     * @return the normalized identifier
+     */
+    static String normalize(final String identifier) {
+        int end = 0;
+        while (end < identifier.length() && identifier.charAt(end) != '#' && identifier.charAt(end) != '?') {
+            end += 1;
+        }
+        if (end > 0 && identifier.charAt(end - 1) == '/') {
+            end -= 1;
+        }
+        return end == identifier.length() ? identifier : identifier.substring(0, end);
+    }
+}
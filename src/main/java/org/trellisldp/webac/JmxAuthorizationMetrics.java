@@ -0,0 +1,167 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.lang.management.ManagementFactory.getPlatformMBeanServer;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+
+/**
+ * The default {@link AuthorizationMetrics} implementation, which publishes metrics via JMX.
+ *
+ * <p>All counters are {@link LongAdder}s and all distributions are power-of-two histograms, so recording a
+ * decision does not allocate and does not contend with concurrent decisions.</p>
+ *
+ * @author acoburn
+ */
+public class JmxAuthorizationMetrics implements AuthorizationMetrics, JmxAuthorizationMetricsMBean {
+
+    /** The name under which the default instance is registered. */
+    public static final String OBJECT_NAME = "org.trellisldp.webac:type=AuthorizationMetrics";
+
+    private static final Logger LOGGER = getLogger(JmxAuthorizationMetrics.class);
+
+    private final Log2Histogram decisionNanos = new Log2Histogram();
+    private final Log2Histogram backendCalls = new Log2Histogram();
+    private final Log2Histogram depth = new Log2Histogram();
+    private final Log2Histogram groupLookups = new Log2Histogram();
+    private final Log2Histogram cacheLoadNanos = new Log2Histogram();
+    private final LongAdder cacheHits = new LongAdder();
+
+    /**
+     * Create JMX-based authorization metrics and register them with the platform MBean server
+     * @return the metrics
+     */
+    static JmxAuthorizationMetrics register() {
+        final JmxAuthorizationMetrics metrics = new JmxAuthorizationMetrics();
+        try {
+            getPlatformMBeanServer().registerMBean(metrics, new ObjectName(OBJECT_NAME));
+        } catch (final JMException ex) {
+            LOGGER.warn("Unable to register authorization metrics with JMX: {}", ex.getMessage());
+        }
+        return metrics;
+    }
+
+    @Override
+    public void recordDecision(final long nanos, final int backendCalls, final int depth,
+            final int groupLookups) {
+        this.decisionNanos.record(nanos);
+        this.backendCalls.record(backendCalls);
+        this.depth.record(depth);
+        this.groupLookups.record(groupLookups);
+    }
+
+    @Override
+    public void recordCacheHit() {
+        cacheHits.increment();
+    }
+
+    @Override
+    public void recordCacheMiss(final long loadNanos) {
+        cacheLoadNanos.record(loadNanos);
+    }
+
+    @Override
+    public long getDecisions() {
+        return decisionNanos.getCount();
+    }
+
+    @Override
+    public double getMeanDecisionNanos() {
+        return decisionNanos.getMean();
+    }
+
+    @Override
+    public long[] getDecisionNanosHistogram() {
+        return decisionNanos.getBuckets();
+    }
+
+    @Override
+    public long getBackendCalls() {
+        return backendCalls.getSum();
+    }
+
+    @Override
+    public double getMeanBackendCalls() {
+        return backendCalls.getMean();
+    }
+
+    @Override
+    public long[] getBackendCallsHistogram() {
+        return backendCalls.getBuckets();
+    }
+
+    @Override
+    public double getMeanDepth() {
+        return depth.getMean();
+    }
+
+    @Override
+    public long[] getDepthHistogram() {
+        return depth.getBuckets();
+    }
+
+    @Override
+    public long getGroupLookups() {
+        return groupLookups.getSum();
+    }
+
+    @Override
+    public long[] getGroupLookupsHistogram() {
+        return groupLookups.getBuckets();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return cacheLoadNanos.getCount();
+    }
+
+    @Override
+    public double getCacheHitRatio() {
+        final long hits = getCacheHits();
+        final long lookups = hits + getCacheMisses();
+        return lookups == 0L ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public double getMeanCacheLoadNanos() {
+        return cacheLoadNanos.getMean();
+    }
+
+    @Override
+    public long[] getCacheLoadNanosHistogram() {
+        return cacheLoadNanos.getBuckets();
+    }
+
+    @Override
+    public void reset() {
+        decisionNanos.reset();
+        backendCalls.reset();
+        depth.reset();
+        groupLookups.reset();
+        cacheLoadNanos.reset();
+        cacheHits.reset();
+    }
+}
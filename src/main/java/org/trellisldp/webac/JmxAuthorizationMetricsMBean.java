@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+/**
+ * The JMX management interface of the default {@link AuthorizationMetrics} implementation.
+ *
+ * <p>Histograms are reported as arrays of bucket counts: bucket 0 counts the value 0 and bucket <em>i</em>
+ * counts the values in [2<sup>i-1</sup>, 2<sup>i</sup>).</p>
+ *
+ * @author acoburn
+ */
+public interface JmxAuthorizationMetricsMBean {
+
+    /**
+     * Get the number of decisions
+     * @return the number of decisions
+     */
+    long getDecisions();
+
+    /**
+     * Get the mean decision latency
+     * @return the mean latency, in nanoseconds
+     */
+    double getMeanDecisionNanos();
+
+    /**
+     * Get the decision latency histogram
+     * @return the histogram of latencies, in nanoseconds
+     */
+    long[] getDecisionNanosHistogram();
+
+    /**
+     * Get the total number of resources read from the resource service
+     * @return the number of reads
+     */
+    long getBackendCalls();
+
+    /**
+     * Get the mean number of resources read per decision
+     * @return the mean number of reads
+     */
+    double getMeanBackendCalls();
+
+    /**
+     * Get the histogram of the number of resources read per decision
+     * @return the histogram
+     */
+    long[] getBackendCallsHistogram();
+
+    /**
+     * Get the mean number of steps taken up the resource hierarchy per decision
+     * @return the mean depth
+     */
+    double getMeanDepth();
+
+    /**
+     * Get the histogram of the number of steps taken up the resource hierarchy per decision
+     * @return the histogram
+     */
+    long[] getDepthHistogram();
+
+    /**
+     * Get the total number of group membership checks
+     * @return the number of checks
+     */
+    long getGroupLookups();
+
+    /**
+     * Get the histogram of the number of group membership checks per decision
+     * @return the histogram
+     */
+    long[] getGroupLookupsHistogram();
+
+    /**
+     * Get the number of decisions read from the cache
+     * @return the number of cache hits
+     */
+    long getCacheHits();
+
+    /**
+     * Get the number of decisions not found in the cache
+     * @return the number of cache misses
+     */
+    long getCacheMisses();
+
+    /**
+     * Get the ratio of cache hits to cache lookups
+     * @return the hit ratio, or 0 if there have been no lookups
+     */
+    double getCacheHitRatio();
+
+    /**
+     * Get the mean time taken to load a decision into the cache
+     * @return the mean load time, in nanoseconds
+     */
+    double getMeanCacheLoadNanos();
+
+    /**
+     * Get the histogram of the time taken to load a decision into the cache
+     * @return the histogram of load times, in nanoseconds
+     */
+    long[] getCacheLoadNanosHistogram();
+
+    /**
+     * Reset all metrics
+     */
+    void reset();
+}
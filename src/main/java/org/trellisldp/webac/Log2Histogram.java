@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.util.Arrays.copyOf;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram with power-of-two buckets.
+ *
+ * <p>Bucket 0 counts the value 0 and bucket <em>i</em> counts the values in [2<sup>i-1</sup>, 2<sup>i</sup>).
+ * Recording a value is a pair of {@link LongAdder} increments, so histograms can be updated on the request
+ * path without contention.</p>
+ *
+ * @author acoburn
+ */
+final class Log2Histogram {
+
+    private final LongAdder[] buckets = new LongAdder[Long.SIZE + 1];
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Create a histogram
+     */
+    Log2Histogram() {
+        for (int i = 0; i < buckets.length; ++i) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record a value
+     * @param value the value (negative values are recorded as 0)
+     */
+    void record(final long value) {
+        final long v = Math.max(value, 0L);
+        buckets[Long.SIZE - Long.numberOfLeadingZeros(v)].increment();
+        sum.add(v);
+    }
+
+    /**
+     * Get the number of recorded values
+     * @return the count
+     */
+    long getCount() {
+        long count = 0L;
+        for (final LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Get the sum of the recorded values
+     * @return the sum
+     */
+    long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Get the mean of the recorded values
+     * @return the mean, or 0 if no values have been recorded
+     */
+    double getMean() {
+        final long count = getCount();
+        return count == 0L ? 0.0 : (double) getSum() / count;
+    }
+
+    /**
+     * Get the bucket counts, up to the highest non-empty bucket
+     * @return the bucket counts
+     */
+    long[] getBuckets() {
+        final long[] counts = new long[buckets.length];
+        int size = 0;
+        for (int i = 0; i < buckets.length; ++i) {
+            counts[i] = buckets[i].sum();
+            if (counts[i] != 0L) {
+                size = i + 1;
+            }
+        }
+        return copyOf(counts, size);
+    }
+
+    /**
+     * Reset the histogram
+     */
+    void reset() {
+        for (final LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        sum.reset();
+    }
+}
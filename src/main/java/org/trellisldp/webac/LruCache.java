@@ -0,0 +1,142 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.lang.System.nanoTime;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+
+/**
+ * A small, size-bounded, least-recently-used map used for the internal lookup tiers of the
+ * {@link WebACService}. Entries may optionally expire after a fixed amount of time, and a listener may be
+ * notified of the entries that are evicted to keep the map within its bound.
+ *
+ * @author acoburn
+ */
+final class LruCache<K, V> {
+
+    private final Map<K, Entry<V>> data;
+    private final long expiry;
+
+    /**
+     * Create a bounded LRU cache
+     * @param maxSize the maximum number of entries
+     */
+    LruCache(final int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * Create a bounded LRU cache with expiring entries
+     * @param maxSize the maximum number of entries
+     * @param expiry the time after which an entry expires (may be null if entries should not expire)
+     */
+    LruCache(final int maxSize, final Duration expiry) {
+        this(maxSize, expiry, (k, v) -> { });
+    }
+
+    /**
+     * Create a bounded LRU cache with expiring entries
+     * @param maxSize the maximum number of entries
+     * @param expiry the time after which an entry expires (may be null if entries should not expire)
+     * @param onEviction a listener that is called, while the cache is locked, with each entry that is evicted
+     *                   because the cache is full
+     */
+    LruCache(final int maxSize, final Duration expiry, final BiConsumer<K, V> onEviction) {
+        this.expiry = expiry == null ? Long.MAX_VALUE : expiry.toNanos();
+        this.data = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<K, Entry<V>> eldest) {
+                if (size() > maxSize) {
+                    onEviction.accept(eldest.getKey(), eldest.getValue().value);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get a value from the cache
+     * @param key the key
+     * @return the value or null if not present
+     */
+    synchronized V get(final K key) {
+        final Entry<V> entry = data.get(key);
+        if (entry == null) {
+            return null;
+        } else if (entry.isExpired()) {
+            data.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Add a value to the cache
+     * @param key the key
+     * @param value the value
+     */
+    synchronized void put(final K key, final V value) {
+        data.put(key, new Entry<>(value, expiry == Long.MAX_VALUE ? Long.MAX_VALUE : nanoTime() + expiry));
+    }
+
+    /**
+     * Remove a value from the cache
+     * @param key the key
+     * @return the value that was removed, or null if there was none
+     */
+    synchronized V remove(final K key) {
+        final Entry<V> entry = data.remove(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * Remove a value from the cache, if it is still mapped to the key
+     * @param key the key
+     * @param value the value
+     */
+    synchronized void remove(final K key, final V value) {
+        final Entry<V> entry = data.get(key);
+        if (entry != null && entry.value == value) {
+            data.remove(key);
+        }
+    }
+
+    /**
+     * Remove all matching values from the cache
+     * @param predicate a predicate that selects the entries to remove
+     */
+    synchronized void removeIf(final BiPredicate<K, V> predicate) {
+        data.entrySet().removeIf(e -> predicate.test(e.getKey(), e.getValue().value));
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expires;
+
+        private Entry(final V value, final long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+
+        private boolean isExpired() {
+            return expires != Long.MAX_VALUE && nanoTime() - expires > 0;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.rdf.api.IRI;
+import org.trellisldp.vocabulary.ACL;
+
+/**
+ * An immutable set of WebAC access modes, backed by a bitmask.
+ *
+ * <p>Only the four WebAC modes (acl:Read, acl:Write, acl:Append and acl:Control) can be represented; any
+ * other value is ignored. There is exactly one instance for each combination of modes, so these sets can be
+ * shared freely, including as cache values.</p>
+ *
+ * @author acoburn
+ */
+final class ModeSet extends AbstractSet<IRI> {
+
+    private static final IRI[] MODES = new IRI[]{ACL.Read, ACL.Write, ACL.Append, ACL.Control};
+
+    private static final int ALL_MASK = (1 << MODES.length) - 1;
+
+    private static final ModeSet[] SETS = new ModeSet[ALL_MASK + 1];
+
+    static {
+        for (int i = 0; i < SETS.length; ++i) {
+            SETS[i] = new ModeSet(i);
+        }
+    }
+
+    /** The empty mode set. */
+    static final ModeSet NONE = SETS[0];
+
+    /** The set of all modes. */
+    static final ModeSet ALL = SETS[ALL_MASK];
+
+    private final int mask;
+
+    private ModeSet(final int mask) {
+        this.mask = mask;
+    }
+
+    /**
+     * Get the mode set for a bitmask
+     * @param mask the bitmask
+     * @return the mode set
+     */
+    static ModeSet of(final int mask) {
+        return SETS[mask & ALL_MASK];
+    }
+
+    /**
+     * Get the bit for a single access mode
+     * @param mode the access mode
+     * @return the bit, or 0 if the value is not a WebAC access mode
+     */
+    static int bit(final Object mode) {
+        for (int i = 0; i < MODES.length; ++i) {
+            if (MODES[i].equals(mode)) {
+                return 1 << i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Get the bitmask for a collection of access modes
+     * @param modes the access modes
+     * @return the bitmask
+     */
+    static int maskOf(final Collection<?> modes) {
+        if (modes instanceof ModeSet) {
+            return ((ModeSet) modes).mask;
+        }
+        int bits = 0;
+        for (final Object mode : modes) {
+            bits |= bit(mode);
+        }
+        return bits;
+    }
+
+    /**
+     * Get the bitmask for this mode set
+     * @return the bitmask
+     */
+    int getMask() {
+        return mask;
+    }
+
+    /**
+     * Get the modes that are in both this and another mode set
+     * @param other the other mode set
+     * @return the intersection of the two mode sets
+     */
+    ModeSet intersect(final ModeSet other) {
+        return of(mask & other.mask);
+    }
+
+    @Override
+    public boolean contains(final Object mode) {
+        return (mask & bit(mode)) != 0;
+    }
+
+    @Override
+    public int size() {
+        return Integer.bitCount(mask);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return mask == 0;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (other instanceof ModeSet) {
+            return mask == ((ModeSet) other).mask;
+        }
+        return super.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    @Override
+    public Iterator<IRI> iterator() {
+        return new Iterator<IRI>() {
+            private int remaining = mask;
+
+            @Override
+            public boolean hasNext() {
+                return remaining != 0;
+            }
+
+            @Override
+            public IRI next() {
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                final int idx = Integer.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+                return MODES[idx];
+            }
+        };
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.lang.System.nanoTime;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A simple rate limiter that spaces out permits evenly, shared by any number of threads.
+ *
+ * @author acoburn
+ */
+final class RateLimiter {
+
+    private final long interval;
+    private final AtomicLong next = new AtomicLong(nanoTime());
+
+    /**
+     * Create a rate limiter
+     * @param permitsPerSecond the number of permits per second (a value that is not positive and finite
+     *                         disables the limit)
+     */
+    RateLimiter(final double permitsPerSecond) {
+        this.interval = permitsPerSecond > 0 && !Double.isInfinite(permitsPerSecond)
+            ? (long) (1_000_000_000L / permitsPerSecond) : 0L;
+    }
+
+    /**
+     * Wait for a permit
+     */
+    void acquire() {
+        if (interval == 0L) {
+            return;
+        }
+        final long now = nanoTime();
+        // Each caller reserves the next free slot; a limiter that has been idle does not accumulate permits
+        final long slot = next.getAndAccumulate(now, (prev, time) -> Math.max(prev, time) + interval);
+        long wait = slot - now;
+        while (wait > 0) {
+            LockSupport.parkNanos(wait);
+            wait = slot - nanoTime();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.util.Objects.isNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * Track the revision at which resources last changed, without locking.
+ *
+ * <p>A value derived from the repository is stamped with the revision that was current before it was loaded.
+ * It remains current for as long as none of the resources it depends on has changed since: that is, none of the
+ * ancestors of its resource, down from its effective ACL source, and not the resource itself. When more than the
+ * maximum number of changed resources are recorded, the record is dropped and every value stamped before that
+ * point is considered out of date.</p>
+ *
+ * <p>When nothing has changed since a value was stamped, checking it is a single volatile read.</p>
+ *
+ * @author acoburn
+ */
+final class Revisions {
+
+    private final AtomicLong counter = new AtomicLong();
+    private final Map<String, Long> changes = new ConcurrentHashMap<>();
+    private final int maxChanges;
+    private volatile long floor;
+
+    /**
+     * Create a revision tracker
+     * @param maxChanges the maximum number of changed resources to record
+     */
+    Revisions(final int maxChanges) {
+        this.maxChanges = maxChanges;
+    }
+
+    /**
+     * Get the current revision
+     * @return the revision
+     */
+    long current() {
+        return counter.get();
+    }
+
+    /**
+     * Record a change to a resource
+     * @param identifier the identifier of the resource that changed
+     */
+    void advance(final IRI identifier) {
+        final long revision = counter.incrementAndGet();
+        if (changes.size() >= maxChanges) {
+            // Raise the floor before the record is dropped, so that no reader can miss both
+            floor = revision;
+            changes.clear();
+        }
+        changes.put(identifier.getIRIString(), revision);
+    }
+
+    /**
+     * Determine whether a value derived from a resource is still current
+     * @param identifier the resource identifier
+     * @param source the effective ACL source of the resource (may be null if every ancestor is relevant)
+     * @param revision the revision with which the value was stamped
+     * @return true if none of the resources on which the value depends has changed since the revision
+     */
+    boolean isCurrent(final IRI identifier, final IRI source, final long revision) {
+        // Nothing has changed since the value was loaded
+        if (revision == counter.get()) {
+            return true;
+        }
+        final String id = identifier.getIRIString();
+        final int stop = isNull(source) ? 0 : source.getIRIString().length() - 1;
+        for (int idx = id.length(); idx > stop; idx = id.lastIndexOf('/', idx - 1)) {
+            if (isChanged(id.substring(0, idx), revision)) {
+                return false;
+            }
+        }
+        if (!isNull(source) && isChanged(source.getIRIString(), revision)) {
+            return false;
+        }
+        return revision >= floor;
+    }
+
+    private boolean isChanged(final String id, final long revision) {
+        final Long changed = changes.get(id);
+        return !isNull(changed) && changed > revision;
+    }
+}
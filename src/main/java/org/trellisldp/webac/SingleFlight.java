@@ -0,0 +1,108 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Coalesce concurrent computations of the same value.
+ *
+ * <p>While a value is being computed for a key, any other thread that asks for the same key waits for that
+ * computation and receives its result (or its exception) instead of starting a computation of its own. Unless it
+ * is explicitly held, nothing is retained once a computation completes: this is not a cache, but it prevents a
+ * burst of cache misses for a popular key from turning into a burst of identical backend requests.</p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @author acoburn
+ */
+final class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inflight = new ConcurrentHashMap<>();
+
+    /**
+     * Compute a value, or wait for a concurrent computation of the same key
+     *
+     * <p>A loader that fills a cache should check the cache again, and fill it, before it returns: once this
+     * method returns, a thread that misses the cache starts a new computation.</p>
+     *
+     * @param key the key
+     * @param loader the function that computes the value
+     * @return the value
+     */
+    V load(final K key, final Function<? super K, ? extends V> loader) {
+        return load(key, loader, false);
+    }
+
+    /**
+     * Compute a value, or wait for a concurrent computation of the same key, and keep a successful computation
+     * available to other threads until it is {@linkplain #release released}
+     *
+     * <p>This is used when the caller stores the value only after this method returns, for instance when the
+     * computation is run from within a {@code CacheService} mapping function: a thread that misses the cache
+     * before the value is stored then receives the same value instead of computing it again. Every caller that
+     * has received a value from this method must release the key once the value has been stored.</p>
+     *
+     * @param key the key
+     * @param loader the function that computes the value
+     * @return the value
+     */
+    V loadAndHold(final K key, final Function<? super K, ? extends V> loader) {
+        return load(key, loader, true);
+    }
+
+    /**
+     * Release a computation that was kept by {@link #loadAndHold}
+     * @param key the key
+     */
+    void release(final K key) {
+        inflight.computeIfPresent(key, (k, flight) -> flight.isDone() ? null : flight);
+    }
+
+    private V load(final K key, final Function<? super K, ? extends V> loader, final boolean hold) {
+        final CompletableFuture<V> flight = new CompletableFuture<>();
+        final CompletableFuture<V> existing = inflight.putIfAbsent(key, flight);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (final CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                throw ex;
+            }
+        }
+
+        try {
+            final V value = loader.apply(key);
+            flight.complete(value);
+            return value;
+        } catch (final RuntimeException ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            if (!flight.isDone()) {
+                // The loader threw an Error: do not leave the waiting threads blocked
+                flight.cancel(false);
+            }
+            if (!hold || flight.isCompletedExceptionally()) {
+                inflight.remove(key, flight);
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.util.Objects.isNull;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.commons.rdf.api.IRI;
+import org.slf4j.Logger;
+
+/**
+ * A read-through layer over an {@link AclSnapshot} that tracks the changes made since the snapshot was taken.
+ *
+ * <p>An identifier that has been invalidated shadows the snapshot entries of itself and of its descendants, as
+ * well as any entry whose effective ACL it holds, so that those resources are resolved live again. Invalidations
+ * are recorded even when no snapshot is installed, since a snapshot that is still being written does not reflect
+ * them. When a snapshot is installed, the invalidations that it already reflects are dropped.</p>
+ *
+ * <p>At most {@value #MAX_OVERRIDES} invalidations are recorded. When that limit is reached they are dropped,
+ * along with the installed snapshot, and a snapshot that was started before that point is not installed.</p>
+ *
+ * <p>The hash codes of the recorded identifiers are also kept in a bit set, so that checking the ancestors of a
+ * resource only reads a substring of its identifier when one of them may have been invalidated.</p>
+ *
+ * @author acoburn
+ */
+final class SnapshotLayer {
+
+    private static final Logger LOGGER = getLogger(SnapshotLayer.class);
+
+    private static final int MAX_OVERRIDES = 100000;
+
+    private static final int FILTER_BITS = 1 << 20;
+
+    private final Map<String, Long> overrides = new ConcurrentHashMap<>();
+    private final int maxOverrides;
+
+    private volatile AtomicLongArray filter = new AtomicLongArray(FILTER_BITS / 64);
+    private volatile AclSnapshot snapshot;
+    private volatile long floor;
+
+    /**
+     * Create a snapshot layer
+     */
+    SnapshotLayer() {
+        this(MAX_OVERRIDES);
+    }
+
+    /**
+     * Create a snapshot layer
+     * @param maxOverrides the maximum number of invalidations to record
+     */
+    SnapshotLayer(final int maxOverrides) {
+        this.maxOverrides = maxOverrides;
+    }
+
+    /**
+     * Install a snapshot
+     * @param snapshot the snapshot (may be null to stop using a snapshot)
+     */
+    void setSnapshot(final AclSnapshot snapshot) {
+        if (!isNull(snapshot) && snapshot.getCreated() < floor) {
+            LOGGER.warn("Not using an ACL snapshot that is older than the changes recorded since it was started");
+            return;
+        }
+        this.snapshot = snapshot;
+        if (!isNull(snapshot)) {
+            // The filter keeps the bits of dropped invalidations until the next reset, which is only slower
+            overrides.values().removeIf(time -> time < snapshot.getCreated());
+        }
+    }
+
+    /**
+     * Whether a snapshot is installed
+     * @return true if a snapshot is installed
+     */
+    boolean isEnabled() {
+        return !isNull(snapshot);
+    }
+
+    /**
+     * Look up the effective ACL source for a resource
+     * @param identifier the resource identifier
+     * @return the effective ACL source, or null if it is not in the snapshot or may have changed
+     */
+    EffectiveAcl resolve(final IRI identifier) {
+        final AclSnapshot current = snapshot;
+        if (isNull(current)) {
+            return null;
+        }
+        final String id = identifier.getIRIString();
+        if (!overrides.isEmpty() && isOverridden(id)) {
+            return null;
+        }
+        final EffectiveAcl acl = current.get(id);
+        if (isNull(acl) || (!overrides.isEmpty() && overrides.containsKey(acl.getSource().getIRIString()))) {
+            return null;
+        }
+        // The snapshot may have been dropped, along with the invalidations, while it was being read
+        return current == snapshot ? acl : null;
+    }
+
+    /**
+     * Record a change to a resource
+     * @param identifier the identifier of the resource that changed
+     */
+    void invalidate(final IRI identifier) {
+        final long now = System.currentTimeMillis();
+        if (overrides.size() >= maxOverrides) {
+            if (!isNull(snapshot)) {
+                LOGGER.warn("Too many changes since the ACL snapshot was taken; no longer using it");
+            }
+            floor = now;
+            // The snapshot is dropped before the invalidations that shadow its entries, and an invalidation that
+            // is recorded in the previous filter is cleared along with it
+            snapshot = null;
+            filter = new AtomicLongArray(FILTER_BITS / 64);
+            overrides.clear();
+        }
+        final String id = identifier.getIRIString();
+        overrides.put(id, now);
+        final int bit = id.hashCode() & (FILTER_BITS - 1);
+        filter.getAndAccumulate(bit >>> 6, 1L << bit, (bits, mask) -> bits | mask);
+    }
+
+    // The hash code of each ancestor identifier is computed incrementally, as String.hashCode would compute it
+    private boolean isOverridden(final String id) {
+        final AtomicLongArray bits = filter;
+        int hash = 0;
+        for (int idx = 0; idx <= id.length(); ++idx) {
+            if (idx == id.length() || idx > 0 && id.charAt(idx) == '/') {
+                final int bit = hash & (FILTER_BITS - 1);
+                if ((bits.get(bit >>> 6) & 1L << bit) != 0 && overrides.containsKey(id.substring(0, idx))) {
+                    return true;
+                }
+            }
+            if (idx < id.length()) {
+                hash = 31 * hash + id.charAt(idx);
+            }
+        }
+        return false;
+    }
+}
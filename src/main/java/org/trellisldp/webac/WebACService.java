@@ -13,41 +13,49 @@
  */
 package org.trellisldp.webac;
 
-import static java.lang.String.join;
-import static java.util.Collections.unmodifiableSet;
+import static java.lang.System.nanoTime;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static java.util.Objects.requireNonNull;
-import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toSet;
-import static java.util.stream.Stream.empty;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.slf4j.LoggerFactory.getLogger;
-import static org.trellisldp.api.RDFUtils.getInstance;
-import static org.trellisldp.api.RDFUtils.toGraph;
 
-import java.util.HashSet;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.ServiceLoader;
 import java.util.Set;
-import java.util.function.Predicate;
-import java.util.stream.Stream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
-import org.apache.commons.rdf.api.Graph;
 import org.apache.commons.rdf.api.IRI;
-import org.apache.commons.rdf.api.RDF;
-import org.apache.commons.rdf.api.RDFTerm;
-import org.apache.commons.rdf.api.Triple;
 import org.slf4j.Logger;
 
 import org.trellisldp.api.AccessControlService;
 import org.trellisldp.api.CacheService;
-import org.trellisldp.api.Resource;
+import org.trellisldp.api.Event;
 import org.trellisldp.api.ResourceService;
-import org.trellisldp.api.RuntimeRepositoryException;
 import org.trellisldp.api.Session;
-import org.trellisldp.vocabulary.ACL;
-import org.trellisldp.vocabulary.FOAF;
 import org.trellisldp.vocabulary.Trellis;
-import org.trellisldp.vocabulary.VCARD;
 
 /**
  *
@@ -57,19 +65,23 @@ public class WebACService implements AccessControlService {
 
     private static final Logger LOGGER = getLogger(WebACService.class);
 
-    private static final RDF rdf = getInstance();
+    private static final int ACL_CACHE_SIZE = 1000;
 
-    private static final Set<IRI> allModes = new HashSet<>();
+    private static final int ACL_INDEX_SIZE = 50000;
 
-    static {
-        allModes.add(ACL.Read);
-        allModes.add(ACL.Write);
-        allModes.add(ACL.Control);
-        allModes.add(ACL.Append);
-    }
+    private static final int GROUP_INDEX_SIZE = 1000;
+
+    private static final Duration INDEX_EXPIRY = Duration.ofMinutes(10);
 
     private final ResourceService resourceService;
-    private final CacheService<String, Set<IRI>> cache;
+    private final CacheService<CacheKey, Set<IRI>> cache;
+    private final AclResolver resolver;
+    private final Executor executor;
+    private final AuthorizationMetrics metrics;
+    private final SingleFlight<CacheKey, Decision> decisions = new SingleFlight<>();
+    private final LruCache<IRI, Epoch> epochs = new LruCache<>(ACL_INDEX_SIZE);
+    private final SnapshotLayer snapshots = new SnapshotLayer();
+    private volatile AccessTrace accessTrace;
 
     /**
      * Create a WebAC-based authorization service
@@ -79,137 +91,556 @@ public class WebACService implements AccessControlService {
         this(resourceService, null);
     }
 
+    /**
+     * Create a WebAC-based authorization service
+     *
+     * <p>Asynchronous evaluations and group membership checks are run on a bounded pool of daemon threads that
+     * is shared by the services created with this constructor. When the pool is saturated, an asynchronous
+     * evaluation fails with a {@link RejectedExecutionException}, rather than running on the calling thread,
+     * while a group membership check is run by the thread that is evaluating the decision.</p>
+     *
+     * @param resourceService the resource service
+     * @param cache a cache (may be null if caching is not desired)
+     */
+    public WebACService(final ResourceService resourceService, final CacheService<CacheKey, Set<IRI>> cache) {
+        this(resourceService, cache, DefaultExecutor.INSTANCE);
+    }
+
     /**
      * Create a WebAC-based authorization service
      * @param resourceService the resource service
      * @param cache a cache (may be null if caching is not desired)
+     * @param executor the executor on which asynchronous evaluations and group membership checks are run
      */
-    public WebACService(final ResourceService resourceService, final CacheService<String, Set<IRI>> cache) {
+    public WebACService(final ResourceService resourceService, final CacheService<CacheKey, Set<IRI>> cache,
+            final Executor executor) {
+        this(resourceService, cache, executor, DefaultMetrics.INSTANCE);
+    }
+
+    /**
+     * Create a WebAC-based authorization service
+     *
+     * <p>The other constructors use the {@link AuthorizationMetrics} implementation registered with the
+     * {@link ServiceLoader}, or a JMX-based implementation if none is registered.</p>
+     *
+     * @param resourceService the resource service
+     * @param cache a cache (may be null if caching is not desired)
+     * @param executor the executor on which asynchronous evaluations and group membership checks are run
+     * @param metrics the receiver of decision metrics
+     */
+    public WebACService(final ResourceService resourceService, final CacheService<CacheKey, Set<IRI>> cache,
+            final Executor executor, final AuthorizationMetrics metrics) {
         requireNonNull(resourceService, "A non-null ResourceService must be provided!");
+        requireNonNull(executor, "A non-null Executor must be provided!");
+        requireNonNull(metrics, "A non-null AuthorizationMetrics must be provided!");
         this.resourceService = resourceService;
         this.cache = cache;
+        this.executor = executor;
+        this.metrics = metrics;
+        this.resolver = nonNull(cache) ? new AclResolver(resourceService, ACL_CACHE_SIZE, ACL_INDEX_SIZE,
+                GROUP_INDEX_SIZE, INDEX_EXPIRY, snapshots) : new AclResolver(resourceService, snapshots);
     }
 
     @Override
     public Set<IRI> getAccessModes(final IRI identifier, final Session session) {
         requireNonNull(session, "A non-null session must be provided!");
+        return getAccessModes(identifier, session, resolver);
+    }
+
+    /**
+     * Determine whether a session has been granted a single access mode on a resource
+     *
+     * <p>When no cache is configured, only the authorizations that can grant the requested mode are
+     * considered, and evaluation stops as soon as one of them applies to the agent; the groups of any
+     * other authorization are never resolved. When a cache is configured, the complete (cached) decision
+     * for the resource is consulted instead, so that it can be shared with subsequent requests.</p>
+     *
+     * @param identifier the resource identifier
+     * @param session the agent's session
+     * @param mode the access mode, e.g. acl:Read
+     * @return true if the mode is granted
+     */
+    public boolean hasAccess(final IRI identifier, final Session session, final IRI mode) {
+        requireNonNull(session, "A non-null session must be provided!");
+        requireNonNull(mode, "A non-null access mode must be provided!");
 
         if (Trellis.RepositoryAdministrator.equals(session.getAgent())) {
-            return unmodifiableSet(allModes);
+            return true;
         }
 
         if (nonNull(cache)) {
-            final Set<IRI> cachedModes = cache.get(getCacheKey(identifier, session.getAgent()), k ->
-                    getAuthz(identifier, session.getAgent()));
-            final Optional<IRI> delegate = session.getDelegatedBy();
-            if (delegate.isPresent()) {
-                cachedModes.retainAll(cache.get(getCacheKey(identifier, delegate.get()), k ->
-                            getAuthz(identifier, delegate.get())));
-            }
-            return cachedModes;
+            return getAccessModes(identifier, session, resolver).contains(mode);
+        }
+
+        final int wanted = ModeSet.bit(mode);
+        return wanted != 0 && trace(new DecisionTrace(), () -> hasAccess(identifier, session.getAgent(), wanted)
+                && session.getDelegatedBy().map(delegate -> hasAccess(identifier, delegate, wanted)).orElse(true));
+    }
+
+    /**
+     * Get the access modes for a resource, without blocking the calling thread
+     *
+     * <p>ACL source resolution, ACL and group document reads are run on the service's executor. When no
+     * cache is configured, the evaluations for the agent and for any delegating agent are run concurrently;
+     * otherwise, the combined decision is read from (or loaded into) a single cache entry. If the executor
+     * rejects an evaluation, the returned stage completes exceptionally with the
+     * {@link RejectedExecutionException}; the calling thread never runs the evaluation itself.</p>
+     *
+     * @param identifier the resource identifier
+     * @param session the agent's session
+     * @return the access modes, once they have been determined
+     */
+    public CompletionStage<? extends Set<IRI>> getAccessModesAsync(final IRI identifier, final Session session) {
+        requireNonNull(session, "A non-null session must be provided!");
+
+        if (Trellis.RepositoryAdministrator.equals(session.getAgent())) {
+            return completedFuture(ModeSet.ALL);
+        }
+
+        if (nonNull(cache)) {
+            return submit(() -> trace(new DecisionTrace(), () -> getCachedModes(identifier, session, resolver)));
+        }
+
+        final long start = nanoTime();
+        final DecisionTrace trace = new DecisionTrace();
+        return combine(session, agent -> submit(() -> within(trace, () -> getAuthz(identifier, agent, resolver))))
+            .whenComplete((modes, err) -> trace.report(metrics, nanoTime() - start, false));
+    }
+
+    /**
+     * Get the access modes for a collection of resources
+     *
+     * <p>Ancestor resolution, parsed ACLs and group memberships are shared across the entire batch, so
+     * the cost of this call grows with the number of distinct ACLs involved rather than with the
+     * number of identifiers.</p>
+     *
+     * @param identifiers the resource identifiers
+     * @param session the agent's session
+     * @return the access modes, keyed by resource identifier
+     */
+    public Map<IRI, Set<IRI>> getAccessModes(final Collection<IRI> identifiers, final Session session) {
+        requireNonNull(identifiers, "A non-null collection of identifiers must be provided!");
+        requireNonNull(session, "A non-null session must be provided!");
+
+        final AclResolver batchResolver = getRequestResolver();
+        final Map<IRI, Set<IRI>> modes = new HashMap<>();
+        identifiers.forEach(identifier ->
+                modes.computeIfAbsent(identifier, id -> getAccessModes(id, session, batchResolver)));
+        return unmodifiableMap(modes);
+    }
+
+    /**
+     * Open a request-scoped evaluation context
+     *
+     * <p>All of the decisions made through the context share their ancestor resolution, parsed ACLs and
+     * group memberships, and each decision is made at most once. Nothing is retained after the context is
+     * closed, so a context can be used to avoid redundant work within a single request even when no
+     * long-lived cache is configured.</p>
+     *
+     * @return the evaluation context
+     */
+    public EvaluationContext openContext() {
+        return new EvaluationContext(this, getRequestResolver());
+    }
+
+    /**
+     * Invalidate any cached authorization data that may be affected by a change to a resource
+     *
+     * <p>This evicts the parsed ACL of the resource, the ACL source of the resource and of its descendants,
+     * the memberships of any group defined in the resource, and any record of the resource or its descendants
+     * being missing. Cached decisions that depend on any of these are not read again. The identifier should be
+     * in the form used by the {@link ResourceService}.</p>
+     *
+     * <p>When a resource is moved, both the old and the new location should be invalidated.</p>
+     *
+     * @param identifier the identifier of the resource that was created, modified, moved or deleted
+     */
+    public void invalidate(final IRI identifier) {
+        requireNonNull(identifier, "A non-null identifier must be provided!");
+        resolver.invalidate(identifier);
+        snapshots.invalidate(identifier);
+    }
+
+    /**
+     * Use a snapshot of the effective ACL sources in the repository
+     *
+     * <p>Resources in the snapshot are resolved to their effective ACL without walking the resource hierarchy.
+     * Changes that are reported through {@link #invalidate(IRI)} after the snapshot was started take precedence
+     * over it, so a snapshot can be replaced by a newer one at any time without interrupting evaluation.</p>
+     *
+     * @param snapshot the snapshot (may be null to stop using a snapshot)
+     * @see AclSnapshot#write
+     */
+    public void setSnapshot(final AclSnapshot snapshot) {
+        snapshots.setSnapshot(snapshot);
+    }
+
+    /**
+     * Invalidate any cached authorization data that may be affected by a resource change notification
+     *
+     * <p>This method can be registered with an event bus in order to keep long-lived caches current.</p>
+     *
+     * @param event the event
+     * @see #invalidate(IRI)
+     */
+    public void invalidate(final Event event) {
+        requireNonNull(event, "A non-null event must be provided!");
+        event.getTarget().ifPresent(this::invalidate);
+    }
+
+    /**
+     * Record the decisions made by this service
+     *
+     * <p>Only decisions that are read from or loaded into the cache are recorded, since there is nothing to warm
+     * up when no cache is configured. Decisions made by {@link #warmUp} are recorded as well.</p>
+     *
+     * @param trace the trace in which decisions are recorded (may be null to stop recording)
+     */
+    public void setAccessTrace(final AccessTrace trace) {
+        this.accessTrace = trace;
+    }
+
+    /**
+     * Populate the caches of this service from an access trace, in the background
+     *
+     * <p>The compiled ACLs of the recorded ACL sources are loaded first, followed by the recorded decisions,
+     * hottest first. Entries are replayed on a dedicated set of threads, which is released once the warm-up
+     * completes. An entry that cannot be replayed, for instance because its resource no longer exists, is
+     * skipped. Nothing is replayed when no cache is configured.</p>
+     *
+     * @param trace the access trace
+     * @param parallelism the number of entries to replay concurrently
+     * @param permitsPerSecond the maximum number of entries to replay per second (a value that is not positive
+     *                         and finite disables the limit)
+     * @return the number of entries that were replayed, once the warm-up is complete
+     */
+    public CompletionStage<Integer> warmUp(final AccessTrace trace, final int parallelism,
+            final double permitsPerSecond) {
+        requireNonNull(trace, "A non-null access trace must be provided!");
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The warm-up parallelism must be positive!");
+        }
+        if (isNull(cache)) {
+            LOGGER.info("No cache is configured; skipping warm-up");
+            return completedFuture(0);
         }
 
-        final Set<IRI> modes = getAuthz(identifier, session.getAgent());
-        session.getDelegatedBy().ifPresent(delegate -> modes.retainAll(getAuthz(identifier, delegate)));
-        return modes;
+        final List<Runnable> sources = new ArrayList<>();
+        trace.getSources().forEach(source -> sources.add(() ->
+                    resolver.getAuthorizations(source, new EffectiveAcl(source, false))));
+        final List<Runnable> decisionEntries = new ArrayList<>();
+        trace.getDecisions().forEach(key -> decisionEntries.add(() ->
+                    getAccessModes(key.getIdentifier(), new TraceSession(key), resolver)));
+
+        final int total = sources.size() + decisionEntries.size();
+        final RateLimiter limiter = new RateLimiter(permitsPerSecond);
+        final AtomicInteger replayed = new AtomicInteger();
+        final ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            final Thread thread = new Thread(runnable, "webac-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        LOGGER.info("Warming up authorization caches with {} entries", total);
+        // The decisions are only replayed once every compiled ACL has been loaded
+        return replay(sources, parallelism, limiter, replayed, workers)
+            .thenCompose(result -> replay(decisionEntries, parallelism, limiter, replayed, workers))
+            .whenComplete((result, err) -> workers.shutdown())
+            .thenApply(result -> {
+                LOGGER.info("Replayed {} of {} warm-up entries", replayed.get(), total);
+                return replayed.get();
+            });
     }
 
-    private String getCacheKey(final IRI identifier, final IRI agent) {
-        return join("||", identifier.getIRIString(), agent.getIRIString());
+    private static CompletableFuture<Void> replay(final List<Runnable> entries, final int parallelism,
+            final RateLimiter limiter, final AtomicInteger replayed, final Executor workers) {
+        final AtomicInteger position = new AtomicInteger();
+        final Runnable worker = () -> {
+            int idx;
+            while ((idx = position.getAndIncrement()) < entries.size()) {
+                limiter.acquire();
+                try {
+                    entries.get(idx).run();
+                    replayed.incrementAndGet();
+                } catch (final RuntimeException ex) {
+                    LOGGER.debug("Skipping warm-up entry: {}", ex.getMessage());
+                }
+            }
+        };
+        final CompletableFuture<?>[] tasks = new CompletableFuture<?>[parallelism];
+        for (int i = 0; i < parallelism; ++i) {
+            tasks[i] = runAsync(worker, workers);
+        }
+        return CompletableFuture.allOf(tasks);
     }
 
-    private Set<IRI> getAuthz(final IRI identifier, final IRI agent) {
-        return getNearestResource(identifier).map(resource -> getAllAuthorizationsFor(resource, true)
-                .filter(agentFilter(agent)))
-            .orElseGet(Stream::empty)
-            .peek(auth -> LOGGER.debug("Applying Authorization {} to {}", auth.getIdentifier(), identifier))
-            .flatMap(auth -> auth.getMode().stream())
-            .collect(toSet());
+    /**
+     * Get the access modes for a resource, using a particular resolver
+     * @param identifier the resource identifier
+     * @param session the agent's session
+     * @param lookup the resolver
+     * @return the access modes
+     */
+    ModeSet getAccessModes(final IRI identifier, final Session session, final AclResolver lookup) {
+        if (Trellis.RepositoryAdministrator.equals(session.getAgent())) {
+            return ModeSet.ALL;
+        }
+
+        if (nonNull(cache)) {
+            return trace(new DecisionTrace(), () -> getCachedModes(identifier, session, lookup));
+        }
+        return trace(new DecisionTrace(), () -> {
+            final ModeSet modes = getAuthz(identifier, session.getAgent(), lookup);
+            return session.getDelegatedBy().map(delegate -> modes.intersect(getAuthz(identifier, delegate, lookup)))
+                .orElse(modes);
+        });
     }
 
-    private Optional<Resource> getNearestResource(final IRI identifier) {
-        final Optional<Resource> res = resourceService.get(identifier);
-        // TODO -- JDK9 refactor with Optional::or
-        if (res.isPresent()) {
-            return res;
+    private <T> T trace(final DecisionTrace trace, final Supplier<T> evaluation) {
+        final long start = nanoTime();
+        try {
+            return within(trace, evaluation);
+        } finally {
+            trace.report(metrics, nanoTime() - start, nonNull(cache));
         }
-        return resourceService.getContainer(identifier).flatMap(this::getNearestResource);
     }
 
-    private Predicate<Authorization> agentFilter(final IRI agent) {
-        return auth -> auth.getAgentClass().contains(FOAF.Agent) ||
-            (auth.getAgentClass().contains(ACL.AuthenticatedAgent) && !Trellis.AnonymousUser.equals(agent)) ||
-            auth.getAgent().contains(agent) || auth.getAgentGroup().stream().anyMatch(isAgentInGroup(agent));
+    private static <T> T within(final DecisionTrace trace, final Supplier<T> evaluation) {
+        final DecisionTrace previous = DecisionTrace.bind(trace);
+        try {
+            return evaluation.get();
+        } finally {
+            DecisionTrace.bind(previous);
+        }
+    }
+
+    private AclResolver getRequestResolver() {
+        return nonNull(cache) ? resolver : new AclResolver(resourceService, Integer.MAX_VALUE, Integer.MAX_VALUE,
+                Integer.MAX_VALUE, null, snapshots);
     }
 
-    private Predicate<Authorization> getInheritedAuth(final IRI identifier) {
-        return auth -> auth.getDefault().contains(identifier);
+    private <T> CompletableFuture<T> submit(final Supplier<T> task) {
+        try {
+            return supplyAsync(task, executor);
+        } catch (final RejectedExecutionException ex) {
+            final CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(ex);
+            return rejected;
+        }
     }
 
-    private Predicate<Authorization> getAccessToAuth(final IRI identifier) {
-        return auth -> auth.getAccessTo().contains(identifier);
+    private static CompletableFuture<ModeSet> combine(final Session session,
+            final Function<IRI, CompletableFuture<ModeSet>> evaluation) {
+        final CompletableFuture<ModeSet> modes = evaluation.apply(session.getAgent());
+        return session.getDelegatedBy().map(evaluation).map(delegateModes ->
+                modes.thenCombine(delegateModes, ModeSet::intersect)).orElse(modes);
     }
 
-    private Predicate<IRI> isAgentInGroup(final IRI agent) {
-        return group -> resourceService.get(cleanIdentifier(group)).filter(res -> {
-            try (final Stream<RDFTerm> triples = res.stream(Trellis.PreferUserManaged)
-                    .filter(t -> t.getSubject().equals(group) && t.getPredicate().equals(VCARD.hasMember))
-                    .map(Triple::getObject)) {
-                return triples.anyMatch(agent::equals);
+    private ModeSet getCachedModes(final IRI identifier, final Session session, final AclResolver lookup) {
+        final IRI agent = session.getAgent();
+        final IRI delegate = session.getDelegatedBy().orElse(null);
+        final AccessTrace recorder = accessTrace;
+        if (nonNull(recorder)) {
+            recorder.recordDecision(identifier, agent, delegate);
+        }
+        final Epoch epoch = getEpoch(identifier, lookup);
+        final CacheKey key = new CacheKey(identifier, agent, delegate, epoch.revision);
+        final DecisionLoader loader = new DecisionLoader(identifier, agent, delegate, lookup);
+        final Set<IRI> cached;
+        try {
+            cached = cache.get(key, loader);
+        } finally {
+            // The evaluation is shared with concurrent misses until the cache has stored its result
+            if (loader.loaded) {
+                decisions.release(key);
             }
-        }).isPresent();
+        }
+        // A cache may hand back a copy of the stored decision, which no longer carries its source
+        final IRI source = cached instanceof Decision ? ((Decision) cached).getSource() : epoch.source;
+        if (loader.loaded && isNull(epoch.source) && nonNull(source) && isRecorded(identifier, epoch)) {
+            // Later checks of this epoch need only walk down to the ACL source
+            epochs.put(identifier, new Epoch(epoch.revision, source));
+        }
+        if (nonNull(recorder) && nonNull(source)) {
+            recorder.recordSource(source);
+        }
+        return cached instanceof Decision ? ((Decision) cached).getModes() : ModeSet.of(ModeSet.maskOf(cached));
     }
 
-    private List<Authorization> getAuthorizationFromGraph(final Graph graph) {
-        return graph.stream().map(Triple::getSubject).distinct().map(subject -> {
-                try (final Graph subGraph = graph.stream(subject, null, null).collect(toGraph())) {
-                    return Authorization.from(subject, subGraph);
-                } catch (final Exception ex) {
-                    throw new RuntimeRepositoryException("Error Processing graph", ex);
-                }
-            }).collect(toList());
+    // Cache entries cannot be replaced, so once any resource on which they depend has changed, the decisions for
+    // a resource are cached under a new key; the check does not depend on the cached values themselves. A
+    // resource without a recorded epoch uses the initial one, which is checked in the same way, so an evicted
+    // epoch never brings back the entries that it had replaced.
+    private Epoch getEpoch(final IRI identifier, final AclResolver lookup) {
+        final Epoch epoch = epochs.get(identifier);
+        final Epoch current = nonNull(epoch) ? epoch : Epoch.INITIAL;
+        if (lookup.isCurrent(identifier, current.source, current.revision)) {
+            return current;
+        }
+        final Epoch next = new Epoch(lookup.getRevision(), null);
+        epochs.put(identifier, next);
+        return next;
     }
 
-    private Stream<Authorization> getAllAuthorizationsFor(final Resource resource, final Boolean top) {
-        LOGGER.debug("Checking ACL for: {}", resource.getIdentifier());
-        final Optional<IRI> parent = resourceService.getContainer(resource.getIdentifier());
-        if (resource.hasAcl()) {
-            try (final Graph graph = resource.stream(Trellis.PreferAccessControl).collect(toGraph())) {
-                final List<Authorization> authorizations = getAuthorizationFromGraph(graph);
+    private boolean isRecorded(final IRI identifier, final Epoch epoch) {
+        final Epoch recorded = epochs.get(identifier);
+        return recorded == epoch || isNull(recorded) && epoch == Epoch.INITIAL;
+    }
 
-                if (!top && authorizations.stream().anyMatch(getInheritedAuth(resource.getIdentifier()))) {
-                    return authorizations.stream().filter(getInheritedAuth(resource.getIdentifier()));
-                }
-                return authorizations.stream().filter(getAccessToAuth(resource.getIdentifier()));
-            } catch (final Exception ex) {
-                throw new RuntimeRepositoryException(ex);
+    private Decision decide(final IRI identifier, final IRI agent, final IRI delegate, final AclResolver lookup) {
+        final Optional<EffectiveAcl> acl = lookup.resolve(identifier);
+        final ModeSet agentModes = getAuthz(identifier, acl, agent, lookup);
+        final ModeSet modes = nonNull(delegate) && !agentModes.isEmpty()
+            ? agentModes.intersect(getAuthz(identifier, acl, delegate, lookup)) : agentModes;
+        return new Decision(modes, acl.map(EffectiveAcl::getSource).orElse(null));
+    }
+
+    private ModeSet getAuthz(final IRI identifier, final Optional<EffectiveAcl> acl, final IRI agent,
+            final AclResolver lookup) {
+        return getModes(identifier, acl.map(a -> lookup.getAuthorizations(identifier, a))
+                .orElse(AuthorizationIndex.EMPTY), agent, lookup);
+    }
+
+    private ModeSet getAuthz(final IRI identifier, final IRI agent, final AclResolver lookup) {
+        return getModes(identifier, lookup.getAuthorizationsFor(identifier), agent, lookup);
+    }
+
+    private boolean hasAccess(final IRI identifier, final IRI agent, final int wanted) {
+        return getModes(identifier, resolver.getAuthorizationsFor(identifier), agent, resolver, wanted).getMask()
+            == wanted;
+    }
+
+    private ModeSet getModes(final IRI identifier, final AuthorizationIndex authorizations, final IRI agent,
+            final AclResolver lookup) {
+        return getModes(identifier, authorizations, agent, lookup, ModeSet.ALL.getMask());
+    }
+
+    // The modes granted directly to the agent are found in the index; groups are only checked
+    // if they could grant a wanted mode that is not already granted.
+    private ModeSet getModes(final IRI identifier, final AuthorizationIndex authorizations, final IRI iri,
+            final AclResolver lookup, final int wanted) {
+        // Authorization values are pooled, so comparisons with the pooled agent succeed on identity
+        final IRI agent = IriPool.getPool().canonical(iri);
+        final int granted = authorizations.getModes(agent, !Trellis.AnonymousUser.equals(agent)) & wanted;
+        LOGGER.debug("Applying direct authorizations to {}: {}", identifier, ModeSet.of(granted));
+        if (granted == wanted || authorizations.getGroups().isEmpty()) {
+            return ModeSet.of(granted);
+        }
+
+        final Map<IRI, Integer> groups = new HashMap<>();
+        authorizations.getGroups().forEach((group, groupModes) -> {
+            final int modes = groupModes & wanted;
+            if ((modes & ~granted) != 0) {
+                groups.put(group, modes);
             }
+        });
+        // Indexed memberships are hash lookups, which are not worth handing to other threads
+        if (lookup.isIndexed(groups.keySet())) {
+            return ModeSet.of(GroupEvaluation.evaluate(groups, granted, lookup.isAgentInGroup(agent)));
+        }
+        return ModeSet.of(GroupEvaluation.evaluate(groups, granted, lookup.isAgentInGroup(agent), executor));
+    }
+
+    /**
+     * Load a decision into the cache; concurrent misses for the same key share a single evaluation.
+     */
+    private final class DecisionLoader implements Function<CacheKey, Set<IRI>> {
+        private final IRI identifier;
+        private final IRI agent;
+        private final IRI delegate;
+        private final AclResolver lookup;
+        private boolean loaded;
+
+        private DecisionLoader(final IRI identifier, final IRI agent, final IRI delegate, final AclResolver lookup) {
+            this.identifier = identifier;
+            this.agent = agent;
+            this.delegate = delegate;
+            this.lookup = lookup;
+        }
+
+        @Override
+        public Set<IRI> apply(final CacheKey key) {
+            final long start = nanoTime();
+            final Decision decision = decisions.loadAndHold(key, k -> decide(identifier, agent, delegate, lookup));
+            DecisionTrace.cacheLoad(nanoTime() - start);
+            loaded = true;
+            return decision;
         }
-        // Nothing here, check the parent
-        LOGGER.debug("No ACL for {}; looking up parent resource", resource.getIdentifier());
-        return parent.flatMap(resourceService::get).map(res -> getAllAuthorizationsFor(res, false))
-            .orElseGet(Stream::empty);
     }
 
     /**
-     * Clean the identifier
-     * @param identifier the identifier
-     * @return the cleaned identifier
+     * The revision under which the decisions for a resource are cached, and the effective ACL source of the
+     * resource, once it is known.
      */
-    private static String cleanIdentifier(final String identifier) {
-        final String id = identifier.split("#")[0].split("\\?")[0];
-        if (id.endsWith("/")) {
-            return id.substring(0, id.length() - 1);
+    private static final class Epoch {
+        private static final Epoch INITIAL = new Epoch(0L, null);
+
+        private final long revision;
+        private final IRI source;
+
+        private Epoch(final long revision, final IRI source) {
+            this.revision = revision;
+            this.source = source;
         }
-        return id;
     }
 
     /**
-     * Clean the identifier
-     * @param identifier the identifier
-     * @return the cleaned identifier
+     * A session for replaying a recorded decision.
      */
-    private static IRI cleanIdentifier(final IRI identifier) {
-        return rdf.createIRI(cleanIdentifier(identifier.getIRIString()));
+    private static final class TraceSession implements Session {
+        private final CacheKey key;
+        private final Instant created = Instant.now();
+
+        private TraceSession(final CacheKey key) {
+            this.key = key;
+        }
+
+        @Override
+        public IRI getIdentifier() {
+            return key.getAgent();
+        }
+
+        @Override
+        public IRI getAgent() {
+            return key.getAgent();
+        }
+
+        @Override
+        public Optional<IRI> getDelegatedBy() {
+            return key.getDelegatedBy();
+        }
+
+        @Override
+        public Instant getCreated() {
+            return created;
+        }
+    }
+
+    private static final class DefaultExecutor {
+        private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+        private static final int QUEUE_SIZE = 1024;
+        private static final Executor INSTANCE = create();
+
+        // Group checks read from the ResourceService and may block, so they are kept off the common pool; tasks
+        // are rejected when the pool is saturated, so that an asynchronous caller is never made to run them
+        private static Executor create() {
+            final AtomicInteger count = new AtomicInteger();
+            final ThreadPoolExecutor pool = new ThreadPoolExecutor(THREADS, THREADS, 60L, SECONDS,
+                    new ArrayBlockingQueue<>(QUEUE_SIZE), runnable -> {
+                        final Thread thread = new Thread(runnable, "webac-evaluation-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+
+    private static final class DefaultMetrics {
+        private static final AuthorizationMetrics INSTANCE = load();
+
+        private static AuthorizationMetrics load() {
+            final Iterator<AuthorizationMetrics> services = ServiceLoader.load(AuthorizationMetrics.class).iterator();
+            return services.hasNext() ? services.next() : JmxAuthorizationMetrics.register();
+        }
     }
 }
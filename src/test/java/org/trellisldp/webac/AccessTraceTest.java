@@ -0,0 +1,129 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class AccessTraceTest {
+
+    private static final RDF rdf = new JenaRDF();
+
+    private final static IRI rootIRI = rdf.createIRI("trellis:repository");
+
+    private final static IRI childIRI = rdf.createIRI("trellis:repository/parent/child");
+
+    private final static IRI resourceIRI = rdf.createIRI("trellis:repository/parent/child/resource");
+
+    private final static IRI agentIRI = rdf.createIRI("info:user/agent");
+
+    private final static IRI delegateIRI = rdf.createIRI("info:user/delegate");
+
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        file = Files.createTempFile("trace", ".txt");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final AccessTrace trace = new AccessTrace(10);
+        trace.recordDecision(childIRI, agentIRI, null);
+        trace.recordDecision(resourceIRI, agentIRI, delegateIRI);
+        trace.recordDecision(resourceIRI, agentIRI, delegateIRI);
+        trace.recordSource(rootIRI);
+        trace.recordSource(childIRI);
+        trace.recordSource(childIRI);
+        trace.write(file);
+
+        final AccessTrace copy = AccessTrace.read(file, 10);
+        assertEquals(asList(childIRI, rootIRI), copy.getSources());
+        final List<CacheKey> decisions = copy.getDecisions();
+        assertEquals(2, decisions.size());
+        assertEquals(new CacheKey(resourceIRI, agentIRI, delegateIRI, 0L), decisions.get(0));
+        assertEquals(new CacheKey(childIRI, agentIRI, null, 0L), decisions.get(1));
+
+        // Counts are retained
+        copy.recordDecision(childIRI, agentIRI, null);
+        copy.recordDecision(childIRI, agentIRI, null);
+        assertEquals(childIRI, copy.getDecisions().get(0).getIdentifier());
+    }
+
+    @Test
+    public void testLimits() throws IOException {
+        final AccessTrace trace = new AccessTrace(1);
+        trace.recordDecision(childIRI, agentIRI, null);
+        trace.recordDecision(resourceIRI, agentIRI, null);
+        trace.recordSource(rootIRI);
+        trace.recordSource(childIRI);
+        assertEquals(1, trace.getDecisions().size());
+        assertEquals(childIRI, trace.getDecisions().get(0).getIdentifier());
+        assertEquals(asList(rootIRI), trace.getSources());
+    }
+
+    @Test
+    public void testInvalidEntries() throws IOException {
+        Files.write(file, asList("S\tnot-a-number\ttrellis:repository", "X\t1\ttrellis:repository", "",
+                    "D\t3\ttrellis:repository/parent/child", "S\t2\ttrellis:repository",
+                    "D\t1\ttrellis:repository/parent/child\tinfo:user/agent"), UTF_8);
+        final AccessTrace trace = AccessTrace.read(file, 10);
+        assertEquals(asList(rootIRI), trace.getSources());
+        assertEquals(1, trace.getDecisions().size());
+        assertFalse(trace.getDecisions().get(0).getDelegatedBy().isPresent());
+    }
+
+    @Test
+    public void testRateLimiter() {
+        final RateLimiter limiter = new RateLimiter(100);
+        final long start = System.nanoTime();
+        for (int i = 0; i < 6; ++i) {
+            limiter.acquire();
+        }
+        assertTrue(System.nanoTime() - start >= 40_000_000L);
+
+        final RateLimiter unlimited = new RateLimiter(0);
+        final long begin = System.nanoTime();
+        for (int i = 0; i < 1000; ++i) {
+            unlimited.acquire();
+        }
+        assertTrue(System.nanoTime() - begin < 1_000_000_000L);
+    }
+}
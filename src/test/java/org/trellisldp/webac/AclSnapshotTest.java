@@ -0,0 +1,219 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.trellisldp.vocabulary.RDF.type;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.trellisldp.api.Resource;
+import org.trellisldp.api.ResourceService;
+import org.trellisldp.vocabulary.LDP;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class AclSnapshotTest {
+
+    private static final RDF rdf = new JenaRDF();
+
+    private final static IRI rootIRI = rdf.createIRI("trellis:repository");
+
+    private final static IRI parentIRI = rdf.createIRI("trellis:repository/parent");
+
+    private final static IRI childIRI = rdf.createIRI("trellis:repository/parent/child");
+
+    private final static IRI resourceIRI = rdf.createIRI("trellis:repository/parent/child/resource");
+
+    private final static IRI orphanIRI = rdf.createIRI("trellis:repository/orphan");
+
+    @Mock
+    private ResourceService mockResourceService;
+
+    @Mock
+    private Resource mockRootResource, mockParentResource, mockChildResource, mockResource;
+
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        initMocks(this);
+        file = Files.createTempFile("snapshot", ".wacs");
+
+        when(mockResourceService.scan(any())).thenAnswer(inv -> Stream.of(
+                rdf.createTriple(rootIRI, type, LDP.BasicContainer),
+                rdf.createTriple(parentIRI, type, LDP.BasicContainer),
+                rdf.createTriple(childIRI, type, LDP.BasicContainer),
+                rdf.createTriple(childIRI, LDP.contains, resourceIRI),
+                rdf.createTriple(resourceIRI, type, LDP.RDFSource),
+                rdf.createTriple(orphanIRI, type, LDP.RDFSource)));
+
+        when(mockResourceService.get(eq(rootIRI))).thenReturn(of(mockRootResource));
+        when(mockResourceService.get(eq(parentIRI))).thenReturn(of(mockParentResource));
+        when(mockResourceService.get(eq(childIRI))).thenReturn(of(mockChildResource));
+        when(mockResourceService.get(eq(resourceIRI))).thenReturn(of(mockResource));
+        when(mockResourceService.get(eq(orphanIRI))).thenReturn(empty());
+        when(mockResourceService.getContainer(resourceIRI)).thenReturn(of(childIRI));
+        when(mockResourceService.getContainer(childIRI)).thenReturn(of(parentIRI));
+        when(mockResourceService.getContainer(parentIRI)).thenReturn(of(rootIRI));
+
+        when(mockRootResource.getIdentifier()).thenReturn(rootIRI);
+        when(mockParentResource.getIdentifier()).thenReturn(parentIRI);
+        when(mockChildResource.getIdentifier()).thenReturn(childIRI);
+        when(mockResource.getIdentifier()).thenReturn(resourceIRI);
+        when(mockRootResource.hasAcl()).thenReturn(true);
+        when(mockChildResource.hasAcl()).thenReturn(true);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testSnapshot() throws IOException {
+        final long start = System.currentTimeMillis();
+        AclSnapshot.write(mockResourceService, "repository", file);
+        final AclSnapshot snapshot = AclSnapshot.open(file);
+
+        assertEquals(4, snapshot.size());
+        assertTrue(snapshot.getCreated() >= start);
+
+        final EffectiveAcl resource = snapshot.get(resourceIRI.getIRIString());
+        assertEquals(childIRI, resource.getSource());
+        assertTrue(resource.isInherited());
+
+        final EffectiveAcl child = snapshot.get(childIRI.getIRIString());
+        assertEquals(childIRI, child.getSource());
+        assertFalse(child.isInherited());
+
+        final EffectiveAcl parent = snapshot.get(parentIRI.getIRIString());
+        assertEquals(rootIRI, parent.getSource());
+        assertTrue(parent.isInherited());
+
+        final EffectiveAcl root = snapshot.get(rootIRI.getIRIString());
+        assertEquals(rootIRI, root.getSource());
+        assertFalse(root.isInherited());
+
+        assertNull(snapshot.get(orphanIRI.getIRIString()));
+        assertNull(snapshot.get("trellis:repository/other"));
+    }
+
+    @Test
+    public void testRewrite() throws IOException {
+        AclSnapshot.write(mockResourceService, "repository", file);
+        final AclSnapshot snapshot = AclSnapshot.open(file);
+
+        // Writing a new snapshot does not modify one that is open
+        when(mockChildResource.hasAcl()).thenReturn(false);
+        AclSnapshot.write(mockResourceService, "repository", file);
+        assertEquals(childIRI, snapshot.get(resourceIRI.getIRIString()).getSource());
+        assertEquals(rootIRI, AclSnapshot.open(file).get(resourceIRI.getIRIString()).getSource());
+    }
+
+    @Test
+    public void testLayer() throws IOException {
+        AclSnapshot.write(mockResourceService, "repository", file);
+        final SnapshotLayer layer = new SnapshotLayer();
+        assertNull(layer.resolve(resourceIRI));
+
+        layer.setSnapshot(AclSnapshot.open(file));
+        assertEquals(childIRI, layer.resolve(resourceIRI).getSource());
+        assertEquals(rootIRI, layer.resolve(parentIRI).getSource());
+
+        // An ancestor change shadows its descendants; a change to an ACL shadows the resources that use it
+        layer.invalidate(childIRI);
+        assertNull(layer.resolve(resourceIRI));
+        assertNull(layer.resolve(childIRI));
+        assertEquals(rootIRI, layer.resolve(parentIRI).getSource());
+        layer.invalidate(rootIRI);
+        assertNull(layer.resolve(parentIRI));
+
+        layer.setSnapshot(null);
+        assertNull(layer.resolve(parentIRI));
+    }
+
+    @Test
+    public void testLayerLimit() throws Exception {
+        AclSnapshot.write(mockResourceService, "repository", file);
+        final AclSnapshot snapshot = AclSnapshot.open(file);
+        final SnapshotLayer layer = new SnapshotLayer(2);
+        layer.setSnapshot(snapshot);
+        Thread.sleep(5);
+
+        layer.invalidate(orphanIRI);
+        layer.invalidate(rdf.createIRI("trellis:repository/other"));
+        assertEquals(rootIRI, layer.resolve(parentIRI).getSource());
+        assertNull(layer.resolve(rdf.createIRI("trellis:repository/other/resource")));
+
+        // Once the limit is reached, a snapshot taken before that point is no longer used
+        layer.invalidate(rdf.createIRI("trellis:repository/another"));
+        assertFalse(layer.isEnabled());
+        assertNull(layer.resolve(parentIRI));
+        layer.setSnapshot(snapshot);
+        assertFalse(layer.isEnabled());
+
+        AclSnapshot.write(mockResourceService, "repository", file);
+        layer.setSnapshot(AclSnapshot.open(file));
+        assertEquals(rootIRI, layer.resolve(parentIRI).getSource());
+    }
+
+    @Test
+    public void testChangeWhileWriting() throws IOException {
+        final SnapshotLayer layer = new SnapshotLayer();
+        when(mockResourceService.scan(any())).thenAnswer(inv -> {
+            // A change is reported while the first snapshot is being written
+            Thread.sleep(5);
+            layer.invalidate(childIRI);
+            return Stream.of(rdf.createTriple(rootIRI, type, LDP.BasicContainer),
+                rdf.createTriple(parentIRI, type, LDP.BasicContainer),
+                rdf.createTriple(childIRI, type, LDP.BasicContainer),
+                rdf.createTriple(resourceIRI, type, LDP.RDFSource));
+        });
+        AclSnapshot.write(mockResourceService, "repository", file);
+        layer.setSnapshot(AclSnapshot.open(file));
+        assertNull(layer.resolve(resourceIRI));
+        assertEquals(rootIRI, layer.resolve(parentIRI).getSource());
+    }
+
+    @Test
+    public void testInvalidFile() throws IOException {
+        Files.write(file, new byte[]{1, 2, 3, 4});
+        assertThrows(IOException.class, () -> AclSnapshot.open(file));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class AclTrieTest {
+
+    private static final RDF rdf = new JenaRDF();
+
+    private final static IRI rootIRI = rdf.createIRI("trellis:repository");
+
+    private final static IRI parentIRI = rdf.createIRI("trellis:repository/parent");
+
+    private final static IRI childIRI = rdf.createIRI("trellis:repository/parent/child");
+
+    private final static IRI resourceIRI = rdf.createIRI("trellis:repository/parent/child/resource");
+
+    @Test
+    public void testLookup() {
+        final AclTrie trie = new AclTrie(100, null);
+        assertNull(trie.lookup(resourceIRI));
+
+        trie.put(rootIRI, true);
+        trie.put(parentIRI, false);
+        trie.put(childIRI, false);
+        assertEquals(3, trie.size());
+        // The resource itself is not yet known
+        assertNull(trie.lookup(resourceIRI));
+
+        trie.put(resourceIRI, false);
+        final EffectiveAcl acl = trie.lookup(resourceIRI);
+        assertEquals(rootIRI, acl.getSource());
+        assertTrue(acl.isInherited());
+
+        final EffectiveAcl root = trie.lookup(rootIRI);
+        assertEquals(rootIRI, root.getSource());
+        assertFalse(root.isInherited());
+
+        trie.put(childIRI, true);
+        assertEquals(childIRI, trie.lookup(resourceIRI).getSource());
+        assertNull(trie.lookup(rdf.createIRI("trellis:repository/parent/chil")));
+        assertNull(trie.lookup(rdf.createIRI("trellis:repository/parent/child/other")));
+    }
+
+    @Test
+    public void testInvalidate() {
+        final AclTrie trie = new AclTrie(100, null);
+        trie.put(rootIRI, true);
+        trie.put(parentIRI, false);
+        trie.put(childIRI, true);
+        trie.put(resourceIRI, false);
+
+        // Ancestors above the nearest ACL-bearing resource need not be known
+        trie.invalidate(parentIRI);
+        assertEquals(childIRI, trie.lookup(resourceIRI).getSource());
+        assertNull(trie.lookup(parentIRI));
+
+        trie.invalidate(childIRI);
+        assertNull(trie.lookup(resourceIRI));
+        trie.invalidate(rdf.createIRI("trellis:repository/other/resource"));
+        assertEquals(4, trie.size());
+    }
+
+    @Test
+    public void testLimits() throws Exception {
+        final AclTrie trie = new AclTrie(2, null);
+        trie.put(rootIRI, true);
+        trie.put(parentIRI, false);
+        trie.put(childIRI, false);
+        assertEquals(2, trie.size());
+        assertEquals(rootIRI, trie.lookup(parentIRI).getSource());
+        assertNull(trie.lookup(childIRI));
+
+        final AclTrie expiring = new AclTrie(100, Duration.ofMillis(1));
+        expiring.put(rootIRI, true);
+        Thread.sleep(5);
+        assertNull(expiring.lookup(rootIRI));
+    }
+
+    @Test
+    public void testManyChildren() {
+        final AclTrie trie = new AclTrie(10000, null);
+        trie.put(rootIRI, true);
+        for (int i = 0; i < 1000; ++i) {
+            trie.put(rdf.createIRI(rootIRI.getIRIString() + "/" + i), i % 2 == 0);
+        }
+        for (int i = 0; i < 1000; ++i) {
+            final EffectiveAcl acl = trie.lookup(rdf.createIRI(rootIRI.getIRIString() + "/" + i));
+            assertEquals(i % 2 != 0, acl.isInherited());
+        }
+    }
+}
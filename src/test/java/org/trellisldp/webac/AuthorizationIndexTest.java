@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.trellisldp.vocabulary.ACL;
+import org.trellisldp.vocabulary.FOAF;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class AuthorizationIndexTest {
+
+    private static final RDF rdf = new JenaRDF();
+
+    private static final int READ = ModeSet.bit(ACL.Read);
+    private static final int WRITE = ModeSet.bit(ACL.Write);
+    private static final int APPEND = ModeSet.bit(ACL.Append);
+    private static final int CONTROL = ModeSet.bit(ACL.Control);
+
+    private final IRI agent = rdf.createIRI("info:user/agent");
+    private final IRI group = rdf.createIRI("trellis:repository/group#members");
+
+    @Test
+    public void testIndex() {
+        final AuthorizationIndex index = new AuthorizationIndex(asList(
+                    Authorization.builder(rdf.createIRI("trellis:repository/acl#public"))
+                        .addAgentClass(FOAF.Agent).addMode(ACL.Read).build(),
+                    Authorization.builder(rdf.createIRI("trellis:repository/acl#users"))
+                        .addAgentClass(ACL.AuthenticatedAgent).addMode(ACL.Append).build(),
+                    Authorization.builder(rdf.createIRI("trellis:repository/acl#agent"))
+                        .addAgent(agent).addAgentGroup(group).addMode(ACL.Write).build(),
+                    Authorization.builder(rdf.createIRI("trellis:repository/acl#group"))
+                        .addAgentGroup(group).addMode(ACL.Control).build(),
+                    Authorization.builder(rdf.createIRI("trellis:repository/acl#nomodes"))
+                        .addAgent(agent).addAgentGroup(rdf.createIRI("trellis:repository/other")).build()));
+
+        assertEquals(5, index.getAuthorizations().size());
+        assertEquals(READ | APPEND | WRITE, index.getModes(agent, true));
+        assertEquals(READ | WRITE, index.getModes(agent, false));
+        assertEquals(READ | APPEND, index.getModes(rdf.createIRI("info:user/other"), true));
+        assertEquals(1, index.getGroups().size());
+        assertEquals(Integer.valueOf(WRITE | CONTROL), index.getGroups().get(group));
+    }
+
+    @Test
+    public void testManyAgents() {
+        final List<Authorization> authorizations = new ArrayList<>();
+        for (int i = 0; i < 5000; ++i) {
+            authorizations.add(Authorization.builder(rdf.createIRI("trellis:repository/acl#auth" + i))
+                    .addAgent(rdf.createIRI("info:user/" + i)).addMode(i % 2 == 0 ? ACL.Read : ACL.Write).build());
+        }
+        final AuthorizationIndex index = new AuthorizationIndex(authorizations);
+        assertEquals(READ, index.getModes(rdf.createIRI("info:user/4998"), true));
+        assertEquals(WRITE, index.getModes(rdf.createIRI("info:user/4999"), true));
+        assertEquals(0, index.getModes(rdf.createIRI("info:user/5000"), true));
+        assertTrue(index.getGroups().isEmpty());
+        assertTrue(AuthorizationIndex.EMPTY.getAuthorizations().isEmpty());
+    }
+}
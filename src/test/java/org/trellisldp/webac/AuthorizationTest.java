@@ -14,8 +14,13 @@
 package org.trellisldp.webac;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.List;
+
 import org.trellisldp.vocabulary.ACL;
 import org.trellisldp.vocabulary.PROV;
 import org.apache.commons.rdf.api.Graph;
@@ -100,4 +105,72 @@ public class AuthorizationTest {
         assertEquals(1, auth.getDefault().size());
         assertTrue(auth.getDefault().contains(rdf.createIRI("trellis:repository/container")));
     }
+
+    @Test
+    public void testParse() {
+        final List<Authorization> auths = Authorization.parse(graph.stream());
+        assertEquals(2, auths.size());
+
+        final Authorization auth = auths.stream().filter(a -> a.getIdentifier().equals(subject)).findFirst().get();
+        assertEquals(2, auth.getAgent().size());
+        assertEquals(1, auth.getAgentClass().size());
+        assertEquals(4, auth.getAgentGroup().size());
+        assertEquals(1, auth.getMode().size());
+        assertEquals(3, auth.getAccessTo().size());
+        assertEquals(1, auth.getDefault().size());
+
+        final Authorization other = auths.stream().filter(a -> !a.getIdentifier().equals(subject)).findFirst().get();
+        assertTrue(other.getAgent().contains(rdf.createIRI("info:agent/baz")));
+        assertTrue(other.getAgentClass().contains(rdf.createIRI("info:agent/SomeOtherClass")));
+        assertTrue(other.getAccessTo().contains(rdf.createIRI("trellis:repository/resource5")));
+        assertTrue(other.getMode().isEmpty());
+        assertTrue(other.getDefault().isEmpty());
+    }
+
+    @Test
+    public void testBuilder() {
+        final Authorization auth = Authorization.builder(subject).addAgent(rdf.createIRI("info:agent/foo"))
+            .addMode(ACL.Read).addMode(ACL.Write).addAccessTo(rdf.createIRI("trellis:repository/resource2"))
+            .build();
+        final Authorization other = Authorization.builder(rdf.createIRI("trellis:repository/other"))
+            .addMode(ACL.Write).addMode(ACL.Read).build();
+
+        assertEquals(subject, auth.getIdentifier());
+        assertEquals(1, auth.getAgent().size());
+        assertTrue(auth.getAgent().contains(rdf.createIRI("info:agent/foo")));
+        assertTrue(auth.getAgentClass().isEmpty());
+        assertTrue(auth.getAgentGroup().isEmpty());
+        assertTrue(auth.getDefault().isEmpty());
+        assertEquals(2, auth.getMode().size());
+        assertTrue(auth.getMode().contains(ACL.Write));
+
+        // Getters do not allocate, and common mode combinations are shared
+        assertSame(auth.getAgent(), auth.getAgent());
+        assertSame(auth.getMode(), other.getMode());
+        assertThrows(UnsupportedOperationException.class, () -> auth.getAgent().add(ACL.Read));
+        assertThrows(UnsupportedOperationException.class, () -> auth.getMode().add(ACL.Append));
+        assertThrows(NullPointerException.class, () -> Authorization.builder(subject).addAgent(null));
+    }
+
+    @Test
+    public void testBuilderSets() {
+        final Authorization.Builder builder = Authorization.builder(subject).addMode(ACL.Read)
+            .addMode(PROV.Activity);
+        for (int i = 0; i < 20; ++i) {
+            builder.addAgent(rdf.createIRI("info:agent/" + i)).addAgentGroup(rdf.createIRI("info:group/" + (i % 5)));
+        }
+        final Authorization auth = builder.build();
+
+        // Values other than the WebAC modes are retained
+        assertEquals(2, auth.getMode().size());
+        assertTrue(auth.getMode().contains(PROV.Activity));
+        assertEquals(20, auth.getAgent().size());
+        assertTrue(auth.getAgent().contains(rdf.createIRI("info:agent/19")));
+        assertEquals(5, auth.getAgentGroup().size());
+        assertTrue(auth.getAgentGroup().contains(rdf.createIRI("info:group/4")));
+        assertFalse(auth.getAgentGroup().contains(rdf.createIRI("info:group/5")));
+        assertEquals(5, auth.getAgentGroup().stream().distinct().count());
+        assertThrows(UnsupportedOperationException.class, () -> auth.getAgentGroup().clear());
+        assertThrows(UnsupportedOperationException.class, () -> auth.getAgent().remove(ACL.Read));
+    }
 }
@@ -0,0 +1,178 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class BoundedCacheServiceTest {
+
+    private static final RDF rdf = new JenaRDF();
+
+    @Test
+    public void testLoadOnce() {
+        final BoundedCacheService<String, String> cache = new BoundedCacheService<>(100);
+        final AtomicInteger loads = new AtomicInteger();
+        final Function<String, String> loader = k -> {
+            loads.incrementAndGet();
+            return k.toUpperCase();
+        };
+        assertEquals("FOO", cache.get("foo", loader));
+        assertEquals("FOO", cache.get("foo", loader));
+        assertEquals("BAR", cache.get("bar", loader));
+        assertEquals(2, loads.get());
+        assertEquals(2L, cache.size());
+
+        cache.invalidateAll();
+        assertEquals(0L, cache.size());
+        assertEquals("FOO", cache.get("foo", loader));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testNullValue() {
+        final BoundedCacheService<String, String> cache = new BoundedCacheService<>(100);
+        assertNull(cache.get("foo", k -> null));
+        assertEquals(0L, cache.size());
+    }
+
+    @Test
+    public void testMaximumSize() {
+        final BoundedCacheService<Integer, Integer> cache = new BoundedCacheService<>(1000);
+        IntStream.range(0, 10000).forEach(i -> cache.get(i, Function.identity()));
+        assertTrue(cache.size() <= 1000L);
+        assertTrue(cache.size() > 0L);
+    }
+
+    @Test
+    public void testFrequentKeysRetained() {
+        final BoundedCacheService<Integer, Integer> cache = new BoundedCacheService<>(64);
+        final AtomicInteger loads = new AtomicInteger();
+        final Function<Integer, Integer> loader = k -> {
+            loads.incrementAndGet();
+            return k;
+        };
+        // A small set of hot keys, interleaved with a scan of one-off keys
+        IntStream.range(0, 10).forEach(round -> IntStream.range(0, 32).forEach(i -> cache.get(i, loader)));
+        IntStream.range(0, 10000).forEach(i -> cache.get(i % 4 == 0 ? (i / 4) % 32 : 1000 + i, loader));
+
+        loads.set(0);
+        IntStream.range(0, 32).forEach(i -> cache.get(i, loader));
+        assertTrue(loads.get() < 8, "Hot keys were evicted by a scan: " + loads.get());
+    }
+
+    @Test
+    public void testNewRevisionAdmitted() {
+        final BoundedCacheService<CacheKey, Integer> cache = new BoundedCacheService<>(16);
+        final IRI agent = rdf.createIRI("info:user/agent");
+        final AtomicInteger loads = new AtomicInteger();
+        final Function<CacheKey, Integer> loader = k -> loads.incrementAndGet();
+        IntStream.range(0, 5).forEach(round -> IntStream.range(0, 16).forEach(i ->
+                    cache.get(new CacheKey(rdf.createIRI("trellis:repository/" + i), agent, null, 0L), loader)));
+
+        // A hot decision that is made again under a new revision displaces a colder entry
+        loads.set(0);
+        final CacheKey key = new CacheKey(rdf.createIRI("trellis:repository/0"), agent, null, 1L);
+        cache.get(key, loader);
+        cache.get(key, loader);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testWeight() {
+        final BoundedCacheService<String, String> cache = new BoundedCacheService<>(100, (k, v) -> v.length(),
+                null);
+        cache.get("a", k -> "0123456789");
+        assertEquals(10L, cache.weightedSize());
+        assertEquals(1000, cache.get("big", k -> new String(new char[1000])).length());
+        assertEquals(10L, cache.weightedSize());
+        IntStream.range(0, 100).forEach(i -> cache.get("k" + i, k -> "0123456789"));
+        assertTrue(cache.weightedSize() <= 100L);
+    }
+
+    @Test
+    public void testRejectedEntry() {
+        final String small = "01234567";
+        final String large = "0123456789abcdef";
+        final BoundedCacheService<String, String> cache = new BoundedCacheService<>(16, (k, v) -> v.length(),
+                null);
+        final AtomicInteger loads = new AtomicInteger();
+        IntStream.range(0, 3).forEach(i -> cache.get("a", k -> small));
+        IntStream.range(0, 3).forEach(i -> cache.get("b", k -> small));
+
+        // A colder entry is rejected, and the entries that it would have displaced are kept
+        assertEquals(large, cache.get("c", k -> large));
+        assertEquals(16L, cache.weightedSize());
+        cache.get("a", k -> "" + loads.incrementAndGet());
+        cache.get("b", k -> "" + loads.incrementAndGet());
+        assertEquals(0, loads.get());
+
+        // Admission is decided once, against the first entry to be displaced
+        final BoundedCacheService<String, String> mixed = new BoundedCacheService<>(16, (k, v) -> v.length(),
+                null);
+        mixed.get("a", k -> small);
+        IntStream.range(0, 3).forEach(i -> mixed.get("b", k -> small));
+        assertEquals(large, mixed.get("c", k -> large));
+        assertEquals(16L, mixed.weightedSize());
+        mixed.get("c", k -> "" + loads.incrementAndGet());
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        final BoundedCacheService<String, Integer> cache = new BoundedCacheService<>(100, Duration.ofMillis(10));
+        final AtomicInteger loads = new AtomicInteger();
+        cache.get("foo", k -> loads.incrementAndGet());
+        cache.get("foo", k -> loads.incrementAndGet());
+        assertEquals(1, loads.get());
+        Thread.sleep(20);
+        assertEquals(Integer.valueOf(2), cache.get("foo", k -> loads.incrementAndGet()));
+    }
+
+    @Test
+    public void testInvalidWeight() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedCacheService<String, String>(0));
+    }
+
+    @Test
+    public void testFrequencySketch() {
+        final FrequencySketch sketch = new FrequencySketch(8);
+        assertEquals(0, sketch.frequency(42));
+        IntStream.range(0, 5).forEach(i -> sketch.increment(42));
+        assertEquals(5, sketch.frequency(42));
+        IntStream.range(0, 100).forEach(i -> sketch.increment(42));
+        assertEquals(15, sketch.frequency(42));
+        // Aging halves every counter once enough occurrences have been recorded
+        IntStream.range(0, 2000).forEach(sketch::increment);
+        assertTrue(sketch.frequency(42) < 15);
+    }
+}
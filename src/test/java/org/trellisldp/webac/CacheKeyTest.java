@@ -0,0 +1,73 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.util.Optional.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class CacheKeyTest {
+
+    private static final RDF rdf = new JenaRDF();
+
+    private final static IRI resourceIRI = rdf.createIRI("trellis:repository/resource");
+
+    private final static IRI agentIRI = rdf.createIRI("info:user/agent");
+
+    private final static IRI delegateIRI = rdf.createIRI("info:user/delegate");
+
+    @Test
+    public void testCacheKey() {
+        final CacheKey key = new CacheKey(resourceIRI, agentIRI);
+        assertSame(resourceIRI, key.getIdentifier());
+        assertSame(agentIRI, key.getAgent());
+        assertEquals(key, new CacheKey(rdf.createIRI("trellis:repository/resource"),
+                    rdf.createIRI("info:user/agent")));
+        assertEquals(key.hashCode(), new CacheKey(resourceIRI, agentIRI).hashCode());
+        assertNotEquals(key, new CacheKey(agentIRI, resourceIRI));
+        assertNotEquals(key, "trellis:repository/resource||info:user/agent");
+        assertFalse(key.getDelegatedBy().isPresent());
+    }
+
+    @Test
+    public void testDelegatedKey() {
+        final CacheKey key = new CacheKey(resourceIRI, agentIRI, delegateIRI, 1L);
+        assertEquals(of(delegateIRI), key.getDelegatedBy());
+        assertEquals(key, new CacheKey(resourceIRI, agentIRI, rdf.createIRI("info:user/delegate"), 1L));
+        assertEquals(key.hashCode(), new CacheKey(resourceIRI, agentIRI, delegateIRI, 1L).hashCode());
+        assertNotEquals(key, new CacheKey(resourceIRI, agentIRI, null, 1L));
+        assertNotEquals(key, new CacheKey(resourceIRI, delegateIRI, agentIRI, 1L));
+        assertNotEquals(key, new CacheKey(resourceIRI, agentIRI, delegateIRI, 2L));
+        assertEquals(key.hashCode(), new CacheKey(resourceIRI, agentIRI, delegateIRI, 2L).hashCode());
+    }
+
+    @Test
+    public void testNoSeparatorCollision() {
+        assertNotEquals(new CacheKey(rdf.createIRI("trellis:a||info:b"), rdf.createIRI("info:c")),
+                new CacheKey(rdf.createIRI("trellis:a"), rdf.createIRI("info:b||info:c")));
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyMap;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.trellisldp.api.RDFUtils.getInstance;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.trellisldp.api.RuntimeRepositoryException;
+import org.trellisldp.vocabulary.ACL;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class GroupEvaluationTest {
+
+    private static final RDF rdf = getInstance();
+
+    private static final IRI group1 = rdf.createIRI("trellis:repository/group/1");
+    private static final IRI group2 = rdf.createIRI("trellis:repository/group/2");
+    private static final IRI group3 = rdf.createIRI("trellis:repository/group/3");
+
+    private static final int READ = ModeSet.bit(ACL.Read);
+    private static final int WRITE = ModeSet.bit(ACL.Write);
+
+    // Tasks submitted to this executor are never run, so that all checks are run, in order, by the caller
+    private static final Executor noop = task -> { };
+
+    @Test
+    public void testNoGroups() {
+        assertEquals(READ, GroupEvaluation.evaluate(emptyMap(), READ, group -> {
+            throw new AssertionError("No groups should be checked");
+        }, noop));
+    }
+
+    @Test
+    public void testAlreadyGranted() {
+        final Map<IRI, Integer> groups = new LinkedHashMap<>();
+        groups.put(group1, READ);
+        assertEquals(READ | WRITE, GroupEvaluation.evaluate(groups, READ | WRITE, group -> {
+            throw new AssertionError("No groups should be checked");
+        }, noop));
+    }
+
+    @Test
+    public void testEarlyExit() {
+        final Map<IRI, Integer> groups = new LinkedHashMap<>();
+        groups.put(group1, READ);
+        groups.put(group2, WRITE);
+        groups.put(group3, READ | WRITE);
+
+        final List<IRI> checked = new ArrayList<>();
+        assertEquals(READ | WRITE, GroupEvaluation.evaluate(groups, 0, group -> {
+            checked.add(group);
+            return group.equals(group3);
+        }, noop));
+        assertEquals(asList(group1, group2, group3), checked);
+
+        checked.clear();
+        assertEquals(READ | WRITE, GroupEvaluation.evaluate(groups, 0, group -> {
+            checked.add(group);
+            return true;
+        }, noop));
+        assertEquals(asList(group1, group2), checked);
+
+        checked.clear();
+        assertEquals(READ | WRITE, GroupEvaluation.evaluate(groups, WRITE, group -> {
+            checked.add(group);
+            return group.equals(group1);
+        }, noop));
+        assertEquals(asList(group1), checked);
+    }
+
+    @Test
+    public void testInline() {
+        final Map<IRI, Integer> groups = new LinkedHashMap<>();
+        groups.put(group1, READ);
+        groups.put(group2, WRITE);
+        groups.put(group3, READ | WRITE);
+
+        final List<IRI> checked = new ArrayList<>();
+        assertEquals(READ | WRITE, GroupEvaluation.evaluate(groups, 0, group -> {
+            checked.add(group);
+            return true;
+        }));
+        assertEquals(asList(group1, group2), checked);
+
+        checked.clear();
+        assertEquals(READ, GroupEvaluation.evaluate(groups, READ, group -> {
+            checked.add(group);
+            return false;
+        }));
+        assertEquals(asList(group2, group3), checked);
+    }
+
+    @Test
+    public void testRejectedExecution() {
+        final Map<IRI, Integer> groups = new LinkedHashMap<>();
+        groups.put(group1, READ);
+        groups.put(group2, WRITE);
+        assertEquals(WRITE, GroupEvaluation.evaluate(groups, 0, group2::equals, task -> {
+            throw new RejectedExecutionException();
+        }));
+    }
+
+    @Test
+    public void testParallel() {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final Map<IRI, Integer> groups = new LinkedHashMap<>();
+            final Set<IRI> members = new HashSet<>();
+            for (int i = 0; i < 20; ++i) {
+                final IRI group = rdf.createIRI("trellis:repository/group/" + i);
+                groups.put(group, i == 15 ? WRITE : READ);
+                if (i % 5 == 0) {
+                    members.add(group);
+                }
+            }
+            assertEquals(READ | WRITE, GroupEvaluation.evaluate(groups, 0, members::contains, executor));
+            assertEquals(READ, GroupEvaluation.evaluate(groups, 0, group -> !group.equals(rdf.createIRI(
+                                "trellis:repository/group/15")), executor));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testError() {
+        final Map<IRI, Integer> groups = new LinkedHashMap<>();
+        groups.put(group1, READ);
+        groups.put(group2, WRITE);
+        assertThrows(RuntimeRepositoryException.class, () -> GroupEvaluation.evaluate(groups, 0, group -> {
+            throw new RuntimeRepositoryException("Expected");
+        }, noop));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class IriPoolTest {
+
+    private static final RDF rdf = new JenaRDF();
+
+    @Test
+    public void testNormalizeString() {
+        final String clean = "trellis:repository/group/test";
+        assertSame(clean, IriPool.normalize(clean));
+        assertEquals(clean, IriPool.normalize("trellis:repository/group/test/"));
+        assertEquals(clean, IriPool.normalize("trellis:repository/group/test#members"));
+        assertEquals(clean, IriPool.normalize("trellis:repository/group/test?ext=acl#members"));
+        assertEquals(clean, IriPool.normalize("trellis:repository/group/test/#members"));
+        assertEquals(clean, IriPool.normalize("trellis:repository/group/test#members?ext=acl"));
+        assertEquals("", IriPool.normalize("#members"));
+        assertEquals("", IriPool.normalize("/"));
+        assertEquals("", IriPool.normalize(""));
+    }
+
+    @Test
+    public void testIntern() {
+        final IriPool pool = new IriPool(2);
+        final IRI agent = rdf.createIRI("info:user/agent");
+        final IRI copy = rdf.createIRI("info:user/agent");
+        assertSame(copy, pool.canonical(copy));
+        assertEquals(0, pool.size());
+
+        assertSame(agent, pool.intern(agent));
+        assertSame(agent, pool.intern(copy));
+        assertSame(agent, pool.canonical(copy));
+
+        pool.intern(rdf.createIRI("info:user/other"));
+        assertEquals(2, pool.size());
+        // A full pool is cleared
+        pool.intern(rdf.createIRI("info:user/another"));
+        assertEquals(1, pool.size());
+        assertSame(copy, pool.canonical(copy));
+    }
+
+    @Test
+    public void testNormalize() {
+        final IriPool pool = new IriPool(100);
+        final IRI group = rdf.createIRI("trellis:repository/group/test#members");
+        final IRI normalized = pool.normalize(group);
+        assertEquals(rdf.createIRI("trellis:repository/group/test"), normalized);
+        assertSame(normalized, pool.normalize(rdf.createIRI("trellis:repository/group/test#members")));
+        assertSame(normalized, pool.normalize(rdf.createIRI("trellis:repository/group/test/")));
+
+        final IRI clean = rdf.createIRI("trellis:repository/group/other");
+        assertSame(clean, pool.normalize(clean));
+        assertNotSame(group, normalized);
+    }
+}
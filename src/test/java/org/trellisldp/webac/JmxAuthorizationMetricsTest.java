@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.lang.management.ManagementFactory.getPlatformMBeanServer;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class JmxAuthorizationMetricsTest {
+
+    @Test
+    public void testDecisions() {
+        final JmxAuthorizationMetrics metrics = new JmxAuthorizationMetrics();
+        metrics.recordDecision(1000L, 3, 2, 0);
+        metrics.recordDecision(3000L, 1, 0, 4);
+
+        assertEquals(2L, metrics.getDecisions());
+        assertEquals(2000.0, metrics.getMeanDecisionNanos());
+        assertEquals(4L, metrics.getBackendCalls());
+        assertEquals(2.0, metrics.getMeanBackendCalls());
+        assertArrayEquals(new long[]{0L, 1L, 1L}, metrics.getBackendCallsHistogram());
+        assertArrayEquals(new long[]{1L, 0L, 1L}, metrics.getDepthHistogram());
+        assertEquals(1.0, metrics.getMeanDepth());
+        assertEquals(4L, metrics.getGroupLookups());
+        assertArrayEquals(new long[]{1L, 0L, 0L, 1L}, metrics.getGroupLookupsHistogram());
+        assertEquals(13, metrics.getDecisionNanosHistogram().length);
+
+        metrics.reset();
+        assertEquals(0L, metrics.getDecisions());
+        assertEquals(0.0, metrics.getMeanDecisionNanos());
+        assertArrayEquals(new long[0], metrics.getDepthHistogram());
+    }
+
+    @Test
+    public void testCache() {
+        final JmxAuthorizationMetrics metrics = new JmxAuthorizationMetrics();
+        assertEquals(0.0, metrics.getCacheHitRatio());
+
+        metrics.recordCacheMiss(100L);
+        metrics.recordCacheHit();
+        metrics.recordCacheHit();
+        metrics.recordCacheHit();
+
+        assertEquals(3L, metrics.getCacheHits());
+        assertEquals(1L, metrics.getCacheMisses());
+        assertEquals(0.75, metrics.getCacheHitRatio());
+        assertEquals(100.0, metrics.getMeanCacheLoadNanos());
+        assertEquals(8, metrics.getCacheLoadNanosHistogram().length);
+    }
+
+    @Test
+    public void testRegistration() throws Exception {
+        assertNotNull(JmxAuthorizationMetrics.register());
+        assertTrue(getPlatformMBeanServer().isRegistered(new ObjectName(JmxAuthorizationMetrics.OBJECT_NAME)));
+        assertNotNull(getPlatformMBeanServer().getAttribute(new ObjectName(JmxAuthorizationMetrics.OBJECT_NAME),
+                    "CacheHitRatio"));
+    }
+}
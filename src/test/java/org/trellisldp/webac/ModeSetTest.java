@@ -0,0 +1,78 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.rdf.api.IRI;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.trellisldp.vocabulary.ACL;
+import org.trellisldp.vocabulary.FOAF;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class ModeSetTest {
+
+    @Test
+    public void testModeSet() {
+        final ModeSet modes = ModeSet.of(ModeSet.maskOf(asList(ACL.Read, ACL.Append, FOAF.Agent)));
+        assertEquals(2, modes.size());
+        assertTrue(modes.contains(ACL.Read));
+        assertTrue(modes.contains(ACL.Append));
+        assertFalse(modes.contains(ACL.Write));
+        assertFalse(modes.contains(ACL.Control));
+        assertFalse(modes.contains(FOAF.Agent));
+        assertEquals(new HashSet<>(asList(ACL.Read, ACL.Append)), modes);
+        assertEquals(modes, new HashSet<>(asList(ACL.Read, ACL.Append)));
+        assertEquals(new HashSet<>(asList(ACL.Read, ACL.Append)).hashCode(), modes.hashCode());
+    }
+
+    @Test
+    public void testFlyweights() {
+        assertSame(ModeSet.ALL, ModeSet.of(ModeSet.maskOf(asList(ACL.Read, ACL.Write, ACL.Append, ACL.Control))));
+        assertSame(ModeSet.NONE, ModeSet.of(0));
+        assertTrue(ModeSet.NONE.isEmpty());
+        assertEquals(4, ModeSet.ALL.size());
+        assertEquals(ModeSet.ALL.getMask(), ModeSet.maskOf(ModeSet.ALL));
+    }
+
+    @Test
+    public void testImmutable() {
+        assertThrows(UnsupportedOperationException.class, () -> ModeSet.NONE.add(ACL.Read));
+        assertThrows(UnsupportedOperationException.class, () -> ModeSet.ALL.remove(ACL.Read));
+        assertThrows(UnsupportedOperationException.class, () -> ModeSet.ALL.retainAll(ModeSet.NONE));
+    }
+
+    @Test
+    public void testIterator() {
+        final Iterator<IRI> iter = ModeSet.of(ModeSet.bit(ACL.Control)).iterator();
+        assertTrue(iter.hasNext());
+        assertEquals(ACL.Control, iter.next());
+        assertFalse(iter.hasNext());
+        assertThrows(NoSuchElementException.class, iter::next);
+    }
+}
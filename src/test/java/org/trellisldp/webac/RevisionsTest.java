@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.apache.commons.rdf.jena.JenaRDF;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class RevisionsTest {
+
+    private static final RDF rdf = new JenaRDF();
+
+    private final static IRI rootIRI = rdf.createIRI("trellis:repository");
+
+    private final static IRI parentIRI = rdf.createIRI("trellis:repository/parent");
+
+    private final static IRI childIRI = rdf.createIRI("trellis:repository/parent/child");
+
+    private final static IRI resourceIRI = rdf.createIRI("trellis:repository/parent/child/resource");
+
+    private final static IRI otherIRI = rdf.createIRI("trellis:repository/parent/other");
+
+    @Test
+    public void testIsCurrent() {
+        final Revisions revisions = new Revisions(100);
+        final long revision = revisions.current();
+        assertTrue(revisions.isCurrent(resourceIRI, childIRI, revision));
+
+        // Changes above the source or outside the path of the resource do not matter
+        revisions.advance(rootIRI);
+        revisions.advance(otherIRI);
+        assertTrue(revisions.isCurrent(resourceIRI, childIRI, revision));
+        assertFalse(revisions.isCurrent(resourceIRI, null, revision));
+
+        revisions.advance(childIRI);
+        assertFalse(revisions.isCurrent(resourceIRI, childIRI, revision));
+        assertTrue(revisions.isCurrent(resourceIRI, childIRI, revisions.current()));
+
+        final long later = revisions.current();
+        revisions.advance(resourceIRI);
+        assertFalse(revisions.isCurrent(resourceIRI, childIRI, later));
+        assertTrue(revisions.isCurrent(childIRI, childIRI, later));
+    }
+
+    @Test
+    public void testFloor() {
+        final Revisions revisions = new Revisions(2);
+        final long revision = revisions.current();
+        revisions.advance(rootIRI);
+        revisions.advance(otherIRI);
+        assertTrue(revisions.isCurrent(resourceIRI, childIRI, revision));
+
+        // Once the record is dropped, older values can no longer be checked
+        revisions.advance(parentIRI);
+        assertFalse(revisions.isCurrent(resourceIRI, childIRI, revision));
+        assertTrue(revisions.isCurrent(resourceIRI, childIRI, revisions.current()));
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trellisldp.webac;
+
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.trellisldp.api.RuntimeRepositoryException;
+
+/**
+ * @author acoburn
+ */
+@RunWith(JUnitPlatform.class)
+public class SingleFlightTest {
+
+    @Test
+    public void testCoalesce() throws Exception {
+        final SingleFlight<String, String> flight = new SingleFlight<>();
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final CompletableFuture<String> first = supplyAsync(() -> flight.load("key", k -> {
+                loads.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "value";
+            }), executor);
+            assertTrue(started.await(5, SECONDS));
+
+            final CountDownLatch waiting = new CountDownLatch(7);
+            final List<CompletableFuture<String>> waiters = new ArrayList<>();
+            for (int i = 0; i < 7; ++i) {
+                waiters.add(supplyAsync(() -> {
+                    waiting.countDown();
+                    return flight.load("key", k -> {
+                        loads.incrementAndGet();
+                        return "other";
+                    });
+                }, executor));
+            }
+            // Give the waiters a chance to join the in-flight computation
+            assertTrue(waiting.await(5, SECONDS));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals("value", first.get(5, SECONDS));
+            for (final CompletableFuture<String> waiter : waiters) {
+                assertEquals("value", waiter.get(5, SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Nothing is retained once the computation completes
+        assertEquals("next", flight.load("key", k -> "next"));
+    }
+
+    @Test
+    public void testError() throws Exception {
+        final SingleFlight<String, String> flight = new SingleFlight<>();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CompletableFuture<String> first = supplyAsync(() -> flight.load("key", k -> {
+            started.countDown();
+            await(release);
+            throw new RuntimeRepositoryException("Expected");
+        }));
+        assertTrue(started.await(5, SECONDS));
+        final CompletableFuture<String> waiter = supplyAsync(() -> flight.load("key", k -> "value"));
+        Thread.sleep(50);
+        release.countDown();
+
+        final CompletionException ex = assertThrows(CompletionException.class, first::join);
+        assertTrue(ex.getCause() instanceof RuntimeRepositoryException);
+        final CompletionException ex2 = assertThrows(CompletionException.class, waiter::join);
+        assertTrue(ex2.getCause() instanceof RuntimeRepositoryException);
+        assertEquals("value", flight.load("key", k -> "value"));
+    }
+
+    @Test
+    public void testHold() {
+        final SingleFlight<String, String> flight = new SingleFlight<>();
+        assertEquals("value", flight.loadAndHold("key", k -> "value"));
+
+        // A held computation is shared until it is released
+        assertEquals("value", flight.load("key", k -> "other"));
+        assertEquals("value", flight.loadAndHold("key", k -> "other"));
+        flight.release("key");
+        assertEquals("next", flight.load("key", k -> "next"));
+
+        assertThrows(RuntimeRepositoryException.class, () -> flight.loadAndHold("key", k -> {
+            throw new RuntimeRepositoryException("Expected");
+        }));
+        assertEquals("value", flight.loadAndHold("key", k -> "value"));
+        flight.release("key");
+    }
+
+    @Test
+    public void testLoaderError() {
+        final SingleFlight<String, String> flight = new SingleFlight<>();
+        assertThrows(AssertionError.class, () -> flight.load("key", k -> {
+            throw new AssertionError("Expected");
+        }));
+        assertEquals("value", flight.load("key", k -> "value"));
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, SECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
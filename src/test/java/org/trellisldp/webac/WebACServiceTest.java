@@ -13,18 +13,39 @@
  */
 package org.trellisldp.webac;
 
+import static java.util.Arrays.asList;
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.trellisldp.vocabulary.RDF.type;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -38,11 +59,13 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.trellisldp.api.AccessControlService;
 import org.trellisldp.api.CacheService;
+import org.trellisldp.api.Event;
 import org.trellisldp.api.Resource;
 import org.trellisldp.api.ResourceService;
 import org.trellisldp.api.Session;
 import org.trellisldp.vocabulary.ACL;
 import org.trellisldp.vocabulary.FOAF;
+import org.trellisldp.vocabulary.LDP;
 import org.trellisldp.vocabulary.PROV;
 import org.trellisldp.vocabulary.Trellis;
 import org.trellisldp.vocabulary.VCARD;
@@ -62,7 +85,13 @@ public class WebACServiceTest {
     private Session mockSession;
 
     @Mock
-    private CacheService<String, Set<IRI>> mockCache;
+    private Event mockEvent;
+
+    @Mock
+    private CacheService<CacheKey, Set<IRI>> mockCache;
+
+    @Mock
+    private AuthorizationMetrics mockMetrics;
 
     @Mock
     private Resource mockResource, mockChildResource, mockParentResource, mockRootResource,
@@ -115,9 +144,9 @@ public class WebACServiceTest {
 
         testService = new WebACService(mockResourceService);
 
-        when(mockCache.get(anyString(), any(Function.class))).thenAnswer(inv -> {
-            final String key = (String) inv.getArgument(0);
-            final Function mapper = (Function<String, String>) inv.getArgument(1);
+        when(mockCache.get(any(CacheKey.class), any(Function.class))).thenAnswer(inv -> {
+            final CacheKey key = (CacheKey) inv.getArgument(0);
+            final Function mapper = (Function<CacheKey, Set<IRI>>) inv.getArgument(1);
             return mapper.apply(key);
         });
 
@@ -649,4 +678,635 @@ public class WebACServiceTest {
         assertFalse(testCacheService.getAccessModes(parentIRI, mockSession).contains(ACL.Write));
         assertFalse(testCacheService.getAccessModes(rootIRI, mockSession).contains(ACL.Write));
     }
+
+    @Test
+    public void testCacheParsesAclOnce() {
+        final AccessControlService testCacheService = new WebACService(mockResourceService, mockCache);
+        when(mockSession.getAgent()).thenReturn(acoburnIRI);
+        assertFalse(testCacheService.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+        when(mockSession.getAgent()).thenReturn(bseegerIRI);
+        assertTrue(testCacheService.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+        when(mockSession.getAgent()).thenReturn(agentIRI);
+        assertTrue(testCacheService.getAccessModes(childIRI, mockSession).contains(ACL.Write));
+
+        verify(mockChildResource, times(1)).stream(eq(Trellis.PreferAccessControl));
+    }
+
+    @Test
+    public void testCacheIndexesAclSource() {
+        final AccessControlService testCacheService = new WebACService(mockResourceService, mockCache);
+        when(mockSession.getAgent()).thenReturn(acoburnIRI);
+        assertTrue(testCacheService.getAccessModes(parentIRI, mockSession).contains(ACL.Append));
+        when(mockSession.getAgent()).thenReturn(bseegerIRI);
+        assertTrue(testCacheService.getAccessModes(parentIRI, mockSession).contains(ACL.Read));
+        assertFalse(testCacheService.getAccessModes(parentIRI, mockSession).contains(ACL.Write));
+
+        verify(mockResourceService, times(1)).get(eq(parentIRI));
+        verify(mockRootResource, times(1)).stream(eq(Trellis.PreferAccessControl));
+    }
+
+    @Test
+    public void testCacheGroupLoadedOnce() {
+        final AccessControlService testCacheService = new WebACService(mockResourceService, mockCache);
+        when(mockSession.getAgent()).thenReturn(acoburnIRI);
+        when(mockGroupResource.stream(eq(Trellis.PreferUserManaged))).thenAnswer(inv -> Stream.of(
+                    rdf.createTriple(groupIRI, VCARD.hasMember, bseegerIRI),
+                    rdf.createTriple(groupIRI, type, VCARD.Group),
+                    rdf.createTriple(groupIRI, VCARD.hasMember, acoburnIRI)));
+
+        when(mockRootResource.stream(eq(Trellis.PreferAccessControl))).thenAnswer(inv -> Stream.of(
+                rdf.createTriple(authIRI5, ACL.agentGroup, groupIRI),
+                rdf.createTriple(authIRI5, ACL.accessTo, rootIRI),
+                rdf.createTriple(authIRI5, ACL.default_, rootIRI),
+                rdf.createTriple(authIRI5, ACL.mode, ACL.Read),
+
+                rdf.createTriple(authIRI8, ACL.agentGroup, groupIRI),
+                rdf.createTriple(authIRI8, ACL.accessTo, rootIRI),
+                rdf.createTriple(authIRI8, ACL.mode, ACL.Write)));
+
+        assertTrue(testCacheService.getAccessModes(rootIRI, mockSession).contains(ACL.Write));
+        assertTrue(testCacheService.getAccessModes(parentIRI, mockSession).contains(ACL.Read));
+        assertFalse(testCacheService.getAccessModes(parentIRI, mockSession).contains(ACL.Write));
+        when(mockSession.getAgent()).thenReturn(bseegerIRI);
+        assertTrue(testCacheService.getAccessModes(rootIRI, mockSession).contains(ACL.Read));
+        when(mockSession.getAgent()).thenReturn(agentIRI);
+        assertFalse(testCacheService.getAccessModes(rootIRI, mockSession).contains(ACL.Read));
+
+        verify(mockGroupResource, times(1)).stream(eq(Trellis.PreferUserManaged));
+    }
+
+    @Test
+    public void testCacheGroupInline() {
+        final AtomicInteger submitted = new AtomicInteger();
+        final WebACService testCacheService = new WebACService(mockResourceService, mockCache, task -> {
+            submitted.incrementAndGet();
+            task.run();
+        }, mockMetrics);
+        when(mockSession.getAgent()).thenReturn(agentIRI);
+        when(mockGroupResource.stream(eq(Trellis.PreferUserManaged))).thenAnswer(inv -> Stream.of(
+                    rdf.createTriple(groupIRI, VCARD.hasMember, bseegerIRI)));
+        when(mockRootResource.stream(eq(Trellis.PreferAccessControl))).thenAnswer(inv -> Stream.of(
+                rdf.createTriple(authIRI5, ACL.agentGroup, groupIRI),
+                rdf.createTriple(authIRI5, ACL.accessTo, rootIRI),
+                rdf.createTriple(authIRI5, ACL.mode, ACL.Read),
+
+                rdf.createTriple(authIRI8, ACL.agentGroup, groupIRI2),
+                rdf.createTriple(authIRI8, ACL.accessTo, rootIRI),
+                rdf.createTriple(authIRI8, ACL.mode, ACL.Write)));
+
+        assertFalse(testCacheService.getAccessModes(rootIRI, mockSession).contains(ACL.Read));
+        assertEquals(1, submitted.get());
+
+        // Once both groups are indexed, their memberships are checked on the calling thread
+        when(mockSession.getAgent()).thenReturn(bseegerIRI);
+        assertTrue(testCacheService.getAccessModes(rootIRI, mockSession).contains(ACL.Read));
+        assertFalse(testCacheService.getAccessModes(rootIRI, mockSession).contains(ACL.Write));
+        assertEquals(1, submitted.get());
+    }
+
+    @Test
+    public void testBatch() {
+        final WebACService testBatchService = new WebACService(mockResourceService);
+        when(mockSession.getAgent()).thenReturn(bseegerIRI);
+        final Map<IRI, Set<IRI>> modes = testBatchService.getAccessModes(asList(nonexistentIRI, resourceIRI,
+                    childIRI, parentIRI, rootIRI), mockSession);
+
+        assertEquals(5, modes.size());
+        assertTrue(modes.get(nonexistentIRI).contains(ACL.Write));
+        assertTrue(modes.get(resourceIRI).contains(ACL.Write));
+        assertTrue(modes.get(childIRI).contains(ACL.Write));
+        assertFalse(modes.get(parentIRI).contains(ACL.Write));
+        assertTrue(modes.get(parentIRI).contains(ACL.Append));
+        assertTrue(modes.get(rootIRI).contains(ACL.Read));
+
+        verify(mockChildResource, times(1)).stream(eq(Trellis.PreferAccessControl));
+        verify(mockRootResource, times(1)).stream(eq(Trellis.PreferAccessControl));
+    }
+
+    @Test
+    public void testBatchAdmin() {
+        final WebACService testBatchService = new WebACService(mockResourceService, mockCache);
+        when(mockSession.getAgent()).thenReturn(Trellis.RepositoryAdministrator);
+        final Map<IRI, Set<IRI>> modes = testBatchService.getAccessModes(asList(resourceIRI, rootIRI), mockSession);
+
+        assertEquals(2, modes.size());
+        assertTrue(modes.get(resourceIRI).contains(ACL.Control));
+        assertTrue(modes.get(rootIRI).contains(ACL.Control));
+    }
+
+    @Test
+    public void testInvalidateAcl() {
+        final Map<CacheKey, Set<IRI>> data = new HashMap<>();
+        final WebACService testCacheService = new WebACService(mockResourceService, data::computeIfAbsent);
+        when(mockSession.getAgent()).thenReturn(acoburnIRI);
+        assertFalse(testCacheService.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+
+        when(mockChildResource.stream(eq(Trellis.PreferAccessControl))).thenAnswer(inv -> Stream.of(
+                rdf.createTriple(authIRI1, ACL.mode, ACL.Write),
+                rdf.createTriple(authIRI1, ACL.agent, acoburnIRI),
+                rdf.createTriple(authIRI1, ACL.accessTo, childIRI)));
+        assertFalse(testCacheService.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+
+        when(mockEvent.getTarget()).thenReturn(of(childIRI));
+        testCacheService.invalidate(mockEvent);
+        assertTrue(testCacheService.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+        assertTrue(testCacheService.getAccessModes(childIRI, mockSession).contains(ACL.Write));
+    }
+
+    @Test
+    public void testInvalidateCopiedDecision() {
+        final Map<CacheKey, Set<IRI>> data = new HashMap<>();
+        final WebACService testCacheService = new WebACService(mockResourceService, (key, loader) ->
+                new HashSet<>(data.computeIfAbsent(key, loader)));
+        when(mockSession.getAgent()).thenReturn(acoburnIRI);
+        assertFalse(testCacheService.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+
+        when(mockChildResource.stream(eq(Trellis.PreferAccessControl))).thenAnswer(inv -> Stream.of(
+                rdf.createTriple(authIRI1, ACL.mode, ACL.Write),
+                rdf.createTriple(authIRI1, ACL.agent, acoburnIRI),
+                rdf.createTriple(authIRI1, ACL.accessTo, childIRI)));
+        assertFalse(testCacheService.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+        assertEquals(1, data.size());
+
+        // A copied decision does not carry its revision, but the key does
+        testCacheService.invalidate(childIRI);
+        assertTrue(testCacheService.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+        assertTrue(testCacheService.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+        assertEquals(2, data.size());
+    }
+
+    @Test
+    public void testInvalidateNewAcl() {
+        final Map<CacheKey, Set<IRI>> data = new HashMap<>();
+        final WebACService testCacheService = new WebACService(mockResourceService, data::computeIfAbsent);
+        when(mockSession.getAgent()).thenReturn(agentIRI);
+        assertTrue(testCacheService.getAccessModes(parentIRI, mockSession).contains(ACL.Read));
+        assertTrue(testCacheService.getAccessModes(rootIRI, mockSession).contains(ACL.Read));
+
+        when(mockParentResource.hasAcl()).thenReturn(true);
+        when(mockParentResource.stream(eq(Trellis.PreferAccessControl))).thenAnswer(inv -> Stream.of(
+                    rdf.createTriple(authIRI5, ACL.accessTo, parentIRI),
+                    rdf.createTriple(authIRI5, ACL.agent, agentIRI),
+                    rdf.createTriple(authIRI5, ACL.mode, ACL.Append)));
+        assertTrue(testCacheService.getAccessModes(parentIRI, mockSession).contains(ACL.Read));
+
+        testCacheService.invalidate(parentIRI);
+        assertFalse(testCacheService.getAccessModes(parentIRI, mockSession).contains(ACL.Read));
+        assertTrue(testCacheService.getAccessModes(parentIRI, mockSession).contains(ACL.Append));
+        assertTrue(testCacheService.getAccessModes(rootIRI, mockSession).contains(ACL.Read));
+    }
+
+    @Test
+    public void testInvalidateGroup() {
+        final Map<CacheKey, Set<IRI>> data = new HashMap<>();
+        final WebACService testCacheService = new WebACService(mockResourceService, data::computeIfAbsent);
+        when(mockSession.getAgent()).thenReturn(acoburnIRI);
+        when(mockGroupResource.stream(eq(Trellis.PreferUserManaged))).thenAnswer(inv -> Stream.of(
+                    rdf.createTriple(groupIRI, VCARD.hasMember, bseegerIRI)));
+        when(mockRootResource.stream(eq(Trellis.PreferAccessControl))).thenAnswer(inv -> Stream.of(
+                rdf.createTriple(authIRI8, ACL.agentGroup, groupIRI),
+                rdf.createTriple(authIRI8, ACL.accessTo, rootIRI),
+                rdf.createTriple(authIRI8, ACL.mode, ACL.Read)));
+
+        assertFalse(testCacheService.getAccessModes(parentIRI, mockSession).contains(ACL.Read));
+
+        when(mockGroupResource.stream(eq(Trellis.PreferUserManaged))).thenAnswer(inv -> Stream.of(
+                    rdf.createTriple(groupIRI, VCARD.hasMember, bseegerIRI),
+                    rdf.createTriple(groupIRI, VCARD.hasMember, acoburnIRI)));
+        assertFalse(testCacheService.getAccessModes(parentIRI, mockSession).contains(ACL.Read));
+
+        when(mockEvent.getTarget()).thenReturn(of(groupIRI));
+        testCacheService.invalidate(mockEvent);
+        assertTrue(testCacheService.getAccessModes(parentIRI, mockSession).contains(ACL.Read));
+    }
+
+    @Test
+    public void testEvictedAclGroups() {
+        when(mockRootResource.stream(eq(Trellis.PreferAccessControl))).thenAnswer(inv -> Stream.of(
+                rdf.createTriple(authIRI8, ACL.agentGroup, groupIRI),
+                rdf.createTriple(authIRI8, ACL.accessTo, rootIRI),
+                rdf.createTriple(authIRI8, ACL.mode, ACL.Read)));
+        final AclResolver resolver = new AclResolver(mockResourceService, 1, 100, 100, null);
+        final long revision = resolver.getRevision();
+        resolver.getAuthorizationsFor(parentIRI);
+        assertTrue(resolver.isCurrent(parentIRI, rootIRI, revision));
+
+        // Decisions that depend on the groups of an evicted ACL are no longer current
+        resolver.getAuthorizationsFor(resourceIRI);
+        assertFalse(resolver.isCurrent(parentIRI, rootIRI, revision));
+
+        final long later = resolver.getRevision();
+        resolver.getAuthorizationsFor(parentIRI);
+        assertTrue(resolver.isCurrent(resourceIRI, childIRI, later));
+        resolver.invalidate(groupIRI);
+        assertFalse(resolver.isCurrent(parentIRI, rootIRI, later));
+        assertTrue(resolver.isCurrent(resourceIRI, childIRI, later));
+    }
+
+    @Test
+    public void testInvalidateDuringLoad() {
+        final Map<CacheKey, Set<IRI>> data = new HashMap<>();
+        final WebACService testCacheService = new WebACService(mockResourceService, data::computeIfAbsent);
+        when(mockSession.getAgent()).thenReturn(acoburnIRI);
+        when(mockRootResource.stream(eq(Trellis.PreferAccessControl))).thenAnswer(inv -> Stream.of(
+                rdf.createTriple(authIRI8, ACL.agentGroup, groupIRI),
+                rdf.createTriple(authIRI8, ACL.accessTo, rootIRI),
+                rdf.createTriple(authIRI8, ACL.default_, rootIRI),
+                rdf.createTriple(authIRI8, ACL.mode, ACL.Read)));
+
+        // The group changes while its previous members are being read
+        when(mockGroupResource.stream(eq(Trellis.PreferUserManaged))).thenAnswer(inv -> {
+            testCacheService.invalidate(groupIRI);
+            when(mockGroupResource.stream(eq(Trellis.PreferUserManaged))).thenAnswer(inv2 -> Stream.of(
+                        rdf.createTriple(groupIRI, VCARD.hasMember, acoburnIRI)));
+            return Stream.of(rdf.createTriple(groupIRI, VCARD.hasMember, bseegerIRI));
+        });
+        assertFalse(testCacheService.getAccessModes(parentIRI, mockSession).contains(ACL.Read));
+        assertTrue(testCacheService.getAccessModes(parentIRI, mockSession).contains(ACL.Read));
+    }
+
+    @Test
+    public void testAsync() {
+        final WebACService testAsyncService = new WebACService(mockResourceService);
+        when(mockSession.getAgent()).thenReturn(bseegerIRI);
+        assertTrue(testAsyncService.getAccessModesAsync(nonexistentIRI, mockSession).toCompletableFuture().join()
+                .contains(ACL.Write));
+        assertFalse(testAsyncService.getAccessModesAsync(parentIRI, mockSession).toCompletableFuture().join()
+                .contains(ACL.Write));
+
+        when(mockSession.getAgent()).thenReturn(agentIRI);
+        when(mockSession.getDelegatedBy()).thenReturn(of(acoburnIRI));
+        assertFalse(testAsyncService.getAccessModesAsync(childIRI, mockSession).toCompletableFuture().join()
+                .contains(ACL.Read));
+
+        when(mockSession.getAgent()).thenReturn(Trellis.RepositoryAdministrator);
+        assertTrue(testAsyncService.getAccessModesAsync(childIRI, mockSession).toCompletableFuture().join()
+                .contains(ACL.Control));
+    }
+
+    @Test
+    public void testAsyncRejected() {
+        final Executor saturated = runnable -> {
+            throw new RejectedExecutionException("Saturated");
+        };
+        final WebACService testAsyncService = new WebACService(mockResourceService, null, saturated);
+        final WebACService testCacheService = new WebACService(mockResourceService, mockCache, saturated);
+        when(mockSession.getAgent()).thenReturn(bseegerIRI);
+        when(mockSession.getDelegatedBy()).thenReturn(of(agentIRI));
+
+        // An evaluation that cannot be handed to the executor fails rather than running on the calling thread
+        final CompletableFuture<? extends Set<IRI>> modes = testAsyncService
+            .getAccessModesAsync(resourceIRI, mockSession).toCompletableFuture();
+        assertTrue(modes.isCompletedExceptionally());
+        final ExecutionException err = assertThrows(ExecutionException.class, modes::get);
+        assertTrue(err.getCause() instanceof RejectedExecutionException);
+        assertTrue(testCacheService.getAccessModesAsync(resourceIRI, mockSession).toCompletableFuture()
+                .isCompletedExceptionally());
+        verify(mockResourceService, never()).get(any());
+
+        // Synchronous evaluations are not affected
+        assertTrue(testAsyncService.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+    }
+
+    @Test
+    public void testCacheAsync() {
+        final WebACService testAsyncService = new WebACService(mockResourceService, mockCache, Runnable::run);
+        when(mockSession.getAgent()).thenReturn(agentIRI);
+        when(mockSession.getDelegatedBy()).thenReturn(of(bseegerIRI));
+
+        assertTrue(testAsyncService.getAccessModesAsync(resourceIRI, mockSession).toCompletableFuture().join()
+                .contains(ACL.Write));
+        assertFalse(testAsyncService.getAccessModesAsync(parentIRI, mockSession).toCompletableFuture().join()
+                .contains(ACL.Write));
+        assertTrue(testAsyncService.getAccessModesAsync(parentIRI, mockSession).toCompletableFuture().join()
+                .contains(ACL.Read));
+    }
+
+    @Test
+    public void testHasAccess() {
+        final WebACService testAccessService = new WebACService(mockResourceService);
+        when(mockSession.getAgent()).thenReturn(bseegerIRI);
+        assertTrue(testAccessService.hasAccess(resourceIRI, mockSession, ACL.Write));
+        assertTrue(testAccessService.hasAccess(rootIRI, mockSession, ACL.Append));
+        assertFalse(testAccessService.hasAccess(parentIRI, mockSession, ACL.Write));
+        assertFalse(testAccessService.hasAccess(childIRI, mockSession, FOAF.Agent));
+
+        when(mockSession.getAgent()).thenReturn(agentIRI);
+        when(mockSession.getDelegatedBy()).thenReturn(of(acoburnIRI));
+        assertFalse(testAccessService.hasAccess(childIRI, mockSession, ACL.Read));
+        when(mockSession.getDelegatedBy()).thenReturn(of(bseegerIRI));
+        assertTrue(testAccessService.hasAccess(childIRI, mockSession, ACL.Read));
+
+        when(mockSession.getAgent()).thenReturn(Trellis.RepositoryAdministrator);
+        assertTrue(testAccessService.hasAccess(parentIRI, mockSession, ACL.Control));
+    }
+
+    @Test
+    public void testHasAccessSkipsGroups() {
+        final WebACService testAccessService = new WebACService(mockResourceService);
+        when(mockSession.getAgent()).thenReturn(acoburnIRI);
+        when(mockGroupResource.stream(eq(Trellis.PreferUserManaged))).thenAnswer(inv -> Stream.of(
+                    rdf.createTriple(groupIRI, VCARD.hasMember, acoburnIRI)));
+
+        when(mockRootResource.stream(eq(Trellis.PreferAccessControl))).thenAnswer(inv -> Stream.of(
+                rdf.createTriple(authIRI5, ACL.agent, acoburnIRI),
+                rdf.createTriple(authIRI5, ACL.accessTo, rootIRI),
+                rdf.createTriple(authIRI5, ACL.mode, ACL.Read),
+
+                rdf.createTriple(authIRI8, ACL.agentGroup, groupIRI),
+                rdf.createTriple(authIRI8, ACL.accessTo, rootIRI),
+                rdf.createTriple(authIRI8, ACL.mode, ACL.Read),
+                rdf.createTriple(authIRI8, ACL.mode, ACL.Write)));
+
+        assertTrue(testAccessService.hasAccess(rootIRI, mockSession, ACL.Read));
+        assertFalse(testAccessService.hasAccess(rootIRI, mockSession, ACL.Control));
+        verify(mockGroupResource, never()).stream(eq(Trellis.PreferUserManaged));
+
+        assertTrue(testAccessService.hasAccess(rootIRI, mockSession, ACL.Write));
+        verify(mockGroupResource, times(1)).stream(eq(Trellis.PreferUserManaged));
+    }
+
+    @Test
+    public void testCacheHasAccess() {
+        final WebACService testAccessService = new WebACService(mockResourceService, mockCache);
+        when(mockSession.getAgent()).thenReturn(agentIRI);
+        when(mockSession.getDelegatedBy()).thenReturn(of(bseegerIRI));
+        assertTrue(testAccessService.hasAccess(resourceIRI, mockSession, ACL.Write));
+        assertFalse(testAccessService.hasAccess(parentIRI, mockSession, ACL.Write));
+        assertTrue(testAccessService.hasAccess(parentIRI, mockSession, ACL.Read));
+    }
+
+    @Test
+    public void testCacheDelegatedEntry() {
+        final Map<CacheKey, Set<IRI>> data = new HashMap<>();
+        final CacheService<CacheKey, Set<IRI>> cache = data::computeIfAbsent;
+        final WebACService testCacheService = new WebACService(mockResourceService, cache);
+        when(mockSession.getAgent()).thenReturn(agentIRI);
+        when(mockSession.getDelegatedBy()).thenReturn(of(bseegerIRI));
+
+        assertTrue(testCacheService.getAccessModes(childIRI, mockSession).contains(ACL.Write));
+        assertEquals(1, data.size());
+        final CacheKey key = data.keySet().iterator().next();
+        assertEquals(agentIRI, key.getAgent());
+        assertEquals(of(bseegerIRI), key.getDelegatedBy());
+
+        when(mockSession.getDelegatedBy()).thenReturn(empty());
+        assertTrue(testCacheService.getAccessModes(childIRI, mockSession).contains(ACL.Control));
+        assertEquals(2, data.size());
+        assertTrue(data.values().stream().allMatch(Decision.class::isInstance));
+    }
+
+    @Test
+    public void testCacheHitWithoutBackend() {
+        final Map<CacheKey, Set<IRI>> data = new HashMap<>();
+        final WebACService testCacheService = new WebACService(mockResourceService, data::computeIfAbsent);
+        when(mockSession.getAgent()).thenReturn(bseegerIRI);
+        assertTrue(testCacheService.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+
+        // A change above the effective ACL source does not affect the cached decision
+        testCacheService.invalidate(parentIRI);
+        clearInvocations(mockResourceService);
+        assertTrue(testCacheService.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+        verify(mockResourceService, never()).get(any());
+        verify(mockResourceService, never()).getContainer(any());
+        assertEquals(1, data.size());
+
+        testCacheService.invalidate(childIRI);
+        assertTrue(testCacheService.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+        assertEquals(2, data.size());
+    }
+
+    @Test
+    public void testMetrics() {
+        final WebACService testMetricsService = new WebACService(mockResourceService, null, Runnable::run,
+                mockMetrics);
+        when(mockSession.getAgent()).thenReturn(bseegerIRI);
+        assertTrue(testMetricsService.getAccessModes(nonexistentIRI, mockSession).contains(ACL.Write));
+        verify(mockMetrics).recordDecision(anyLong(), eq(3), eq(2), eq(0));
+        verify(mockMetrics, never()).recordCacheHit();
+        verify(mockMetrics, never()).recordCacheMiss(anyLong());
+    }
+
+    @Test
+    public void testCacheMetrics() {
+        final Map<CacheKey, Set<IRI>> data = new HashMap<>();
+        final WebACService testMetricsService = new WebACService(mockResourceService, data::computeIfAbsent,
+                Runnable::run, mockMetrics);
+        when(mockSession.getAgent()).thenReturn(bseegerIRI);
+        assertTrue(testMetricsService.getAccessModes(childIRI, mockSession).contains(ACL.Write));
+        verify(mockMetrics).recordCacheMiss(anyLong());
+        verify(mockMetrics, never()).recordCacheHit();
+
+        assertTrue(testMetricsService.getAccessModes(childIRI, mockSession).contains(ACL.Write));
+        verify(mockMetrics).recordCacheMiss(anyLong());
+        verify(mockMetrics).recordCacheHit();
+        verify(mockMetrics, times(2)).recordDecision(anyLong(), anyInt(), anyInt(), eq(0));
+    }
+
+    @Test
+    public void testCacheMissingResources() {
+        final IRI missingIRI = rdf.createIRI("trellis:repository/parent/child/nonexistent/missing");
+        final IRI missingIRI2 = rdf.createIRI("trellis:repository/parent/child/nonexistent/missing/a");
+        final IRI missingIRI3 = rdf.createIRI("trellis:repository/parent/child/nonexistent/missing/b");
+        when(mockResourceService.get(eq(missingIRI))).thenReturn(empty());
+        when(mockResourceService.get(eq(missingIRI2))).thenReturn(empty());
+        when(mockResourceService.get(eq(missingIRI3))).thenReturn(empty());
+        when(mockResourceService.getContainer(missingIRI)).thenReturn(of(nonexistentIRI));
+        when(mockResourceService.getContainer(missingIRI2)).thenReturn(of(missingIRI));
+        when(mockResourceService.getContainer(missingIRI3)).thenReturn(of(missingIRI));
+
+        final Map<CacheKey, Set<IRI>> data = new HashMap<>();
+        final WebACService testCacheService = new WebACService(mockResourceService, data::computeIfAbsent);
+        when(mockSession.getAgent()).thenReturn(bseegerIRI);
+        assertTrue(testCacheService.getAccessModes(missingIRI2, mockSession).contains(ACL.Write));
+        assertTrue(testCacheService.getAccessModes(missingIRI3, mockSession).contains(ACL.Write));
+        verify(mockResourceService, times(1)).get(eq(missingIRI));
+        verify(mockResourceService, times(1)).get(eq(nonexistentIRI));
+
+        // Once the missing container is created, it becomes the nearest existing ancestor
+        when(mockResourceService.get(eq(missingIRI))).thenReturn(of(mockPrivateAclResource));
+        when(mockPrivateAclResource.getIdentifier()).thenReturn(missingIRI);
+        when(mockPrivateAclResource.hasAcl()).thenReturn(true);
+        when(mockPrivateAclResource.stream(eq(Trellis.PreferAccessControl))).thenAnswer(inv -> Stream.of(
+                    rdf.createTriple(authIRI5, ACL.accessTo, missingIRI),
+                    rdf.createTriple(authIRI5, ACL.agent, bseegerIRI),
+                    rdf.createTriple(authIRI5, ACL.mode, ACL.Append)));
+        testCacheService.invalidate(missingIRI);
+        final IRI missingIRI4 = rdf.createIRI("trellis:repository/parent/child/nonexistent/missing/c");
+        when(mockResourceService.get(eq(missingIRI4))).thenReturn(empty());
+        when(mockResourceService.getContainer(missingIRI4)).thenReturn(of(missingIRI));
+        assertFalse(testCacheService.getAccessModes(missingIRI2, mockSession).contains(ACL.Write));
+        assertTrue(testCacheService.getAccessModes(missingIRI2, mockSession).contains(ACL.Append));
+        assertTrue(testCacheService.getAccessModes(missingIRI4, mockSession).contains(ACL.Append));
+    }
+
+    @Test
+    public void testCacheMissingIntermediate() {
+        final IRI midIRI = rdf.createIRI("trellis:repository/mid");
+        final IRI leafIRI = rdf.createIRI("trellis:repository/mid/leaf");
+        when(mockResourceService.get(eq(midIRI))).thenReturn(empty());
+        when(mockResourceService.get(eq(leafIRI))).thenReturn(of(mockPublicAclResource));
+        when(mockResourceService.getContainer(midIRI)).thenReturn(of(rootIRI));
+        when(mockResourceService.getContainer(leafIRI)).thenReturn(of(midIRI));
+        when(mockPublicAclResource.getIdentifier()).thenReturn(leafIRI);
+        when(mockPublicAclResource.hasAcl()).thenReturn(false);
+        when(mockRootResource.stream(eq(Trellis.PreferAccessControl))).thenAnswer(inv -> Stream.of(
+                rdf.createTriple(authIRI8, ACL.agent, agentIRI),
+                rdf.createTriple(authIRI8, ACL.accessTo, rootIRI),
+                rdf.createTriple(authIRI8, ACL.default_, rootIRI),
+                rdf.createTriple(authIRI8, ACL.mode, ACL.Read)));
+
+        // A resource below a missing container inherits nothing, whichever is resolved first
+        assertTrue(testService.getAccessModes(midIRI, mockSession).contains(ACL.Read));
+        assertTrue(testService.getAccessModes(leafIRI, mockSession).isEmpty());
+
+        final Map<CacheKey, Set<IRI>> data = new HashMap<>();
+        final WebACService testCacheService = new WebACService(mockResourceService, data::computeIfAbsent);
+        assertTrue(testCacheService.getAccessModes(midIRI, mockSession).contains(ACL.Read));
+        assertTrue(testCacheService.getAccessModes(leafIRI, mockSession).isEmpty());
+    }
+
+    @Test
+    public void testInvalidateBelowMissing() {
+        final IRI midIRI = rdf.createIRI("trellis:repository/mid");
+        final IRI leafIRI = rdf.createIRI("trellis:repository/mid/leaf");
+        when(mockResourceService.get(eq(midIRI))).thenReturn(empty());
+        when(mockResourceService.get(eq(leafIRI))).thenReturn(empty());
+        when(mockResourceService.getContainer(midIRI)).thenReturn(of(rootIRI));
+        when(mockResourceService.getContainer(leafIRI)).thenReturn(of(midIRI));
+
+        final Map<CacheKey, Set<IRI>> data = new HashMap<>();
+        final WebACService testCacheService = new WebACService(mockResourceService, data::computeIfAbsent);
+        assertTrue(testCacheService.getAccessModes(midIRI, mockSession).contains(ACL.Read));
+        assertTrue(testCacheService.getAccessModes(leafIRI, mockSession).contains(ACL.Read));
+
+        // Only the creation of the child is reported, but its ancestors can no longer be missing
+        when(mockResourceService.get(eq(midIRI))).thenReturn(of(mockParentResource));
+        when(mockResourceService.get(eq(leafIRI))).thenReturn(of(mockPublicAclResource));
+        when(mockParentResource.getIdentifier()).thenReturn(midIRI);
+        when(mockParentResource.hasAcl()).thenReturn(true);
+        when(mockParentResource.stream(eq(Trellis.PreferAccessControl))).thenAnswer(inv -> Stream.of(
+                    rdf.createTriple(authIRI5, ACL.accessTo, midIRI),
+                    rdf.createTriple(authIRI5, ACL.agent, agentIRI),
+                    rdf.createTriple(authIRI5, ACL.mode, ACL.Append)));
+        when(mockPublicAclResource.getIdentifier()).thenReturn(leafIRI);
+        when(mockPublicAclResource.hasAcl()).thenReturn(false);
+        testCacheService.invalidate(leafIRI);
+
+        assertFalse(testCacheService.getAccessModes(leafIRI, mockSession).contains(ACL.Read));
+        assertTrue(testCacheService.getAccessModes(leafIRI, mockSession).contains(ACL.Append));
+        assertFalse(testCacheService.getAccessModes(midIRI, mockSession).contains(ACL.Read));
+        assertTrue(testCacheService.getAccessModes(midIRI, mockSession).contains(ACL.Append));
+    }
+
+    @Test
+    public void testEvaluationContext() {
+        final WebACService testContextService = new WebACService(mockResourceService);
+        try (final EvaluationContext context = testContextService.openContext()) {
+            when(mockSession.getAgent()).thenReturn(bseegerIRI);
+            assertTrue(context.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+            assertTrue(context.hasAccess(childIRI, mockSession, ACL.Write));
+            assertTrue(context.hasAccess(resourceIRI, mockSession, ACL.Control));
+            assertFalse(context.hasAccess(parentIRI, mockSession, ACL.Write));
+            assertThrows(NullPointerException.class, () -> context.hasAccess(resourceIRI, mockSession, null));
+
+            when(mockSession.getAgent()).thenReturn(agentIRI);
+            when(mockSession.getDelegatedBy()).thenReturn(of(acoburnIRI));
+            assertFalse(context.hasAccess(childIRI, mockSession, ACL.Read));
+
+            when(mockSession.getAgent()).thenReturn(Trellis.RepositoryAdministrator);
+            when(mockSession.getDelegatedBy()).thenReturn(empty());
+            assertTrue(context.hasAccess(childIRI, mockSession, ACL.Control));
+
+            verify(mockChildResource, times(1)).stream(eq(Trellis.PreferAccessControl));
+            verify(mockResourceService, times(1)).get(eq(resourceIRI));
+
+            context.close();
+            assertThrows(IllegalStateException.class, () -> context.getAccessModes(childIRI, mockSession));
+        }
+    }
+
+    @Test
+    public void testSnapshot() throws IOException {
+        when(mockResourceService.scan(any())).thenAnswer(inv -> Stream.of(
+                rdf.createTriple(rootIRI, type, LDP.BasicContainer),
+                rdf.createTriple(parentIRI, type, LDP.BasicContainer),
+                rdf.createTriple(childIRI, type, LDP.BasicContainer),
+                rdf.createTriple(resourceIRI, type, LDP.RDFSource)));
+        final Path file = Files.createTempFile("snapshot", ".wacs");
+        try {
+            AclSnapshot.write(mockResourceService, "repository", file);
+            final WebACService testSnapshotService = new WebACService(mockResourceService);
+            testSnapshotService.setSnapshot(AclSnapshot.open(file));
+            clearInvocations(mockResourceService);
+
+            when(mockSession.getAgent()).thenReturn(bseegerIRI);
+            assertTrue(testSnapshotService.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+            verify(mockResourceService, never()).get(eq(resourceIRI));
+
+            // A reported change takes precedence over the snapshot
+            testSnapshotService.invalidate(resourceIRI);
+            assertTrue(testSnapshotService.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+            verify(mockResourceService).get(eq(resourceIRI));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testCacheAclStatus() {
+        final Map<CacheKey, Set<IRI>> data = new HashMap<>();
+        final WebACService testCacheService = new WebACService(mockResourceService, data::computeIfAbsent);
+        when(mockSession.getAgent()).thenReturn(bseegerIRI);
+        assertTrue(testCacheService.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+
+        // A change to an ancestor evicts the ACL source of its descendants, but the ACL status of the
+        // resources below the nearest ACL is still known
+        testCacheService.invalidate(parentIRI);
+        assertTrue(testCacheService.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+        verify(mockResourceService, times(1)).get(eq(resourceIRI));
+
+        testCacheService.invalidate(resourceIRI);
+        assertTrue(testCacheService.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+        verify(mockResourceService, times(2)).get(eq(resourceIRI));
+    }
+
+    @Test
+    public void testWarmUp() throws Exception {
+        final Map<CacheKey, Set<IRI>> data = new ConcurrentHashMap<>();
+        final WebACService testCacheService = new WebACService(mockResourceService, data::computeIfAbsent);
+        final AccessTrace trace = new AccessTrace(100);
+        testCacheService.setAccessTrace(trace);
+        when(mockSession.getAgent()).thenReturn(bseegerIRI);
+        assertTrue(testCacheService.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+        assertTrue(testCacheService.getAccessModes(parentIRI, mockSession).contains(ACL.Append));
+        assertEquals(2, trace.getDecisions().size());
+        assertEquals(2, trace.getSources().size());
+
+        final Path file = Files.createTempFile("trace", ".txt");
+        try {
+            trace.write(file);
+            data.clear();
+            clearInvocations(mockResourceService, mockChildResource, mockRootResource);
+
+            final WebACService testWarmService = new WebACService(mockResourceService, data::computeIfAbsent);
+            final Integer replayed = testWarmService.warmUp(AccessTrace.read(file, 100), 2, 1000)
+                .toCompletableFuture().get(5, SECONDS);
+            assertEquals(Integer.valueOf(4), replayed);
+            assertEquals(2, data.size());
+            verify(mockChildResource).stream(eq(Trellis.PreferAccessControl));
+            verify(mockRootResource).stream(eq(Trellis.PreferAccessControl));
+
+            // Warmed decisions are served from the cache
+            assertTrue(testWarmService.getAccessModes(resourceIRI, mockSession).contains(ACL.Write));
+            assertEquals(2, data.size());
+            verify(mockChildResource).stream(eq(Trellis.PreferAccessControl));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        assertEquals(Integer.valueOf(0), new WebACService(mockResourceService).warmUp(trace, 1, 0)
+                .toCompletableFuture().get(5, SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> testCacheService.warmUp(trace, 0, 0));
+    }
 }